@@ -1,33 +1,172 @@
 package com.mycompany.paradigmas;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 // Interfaces
+// montoPago y promedioActual no lanzan excepciones ni crean objetos, para los cálculos masivos;
+// calcularPago y calcularPromedio las envuelven y lanzan la excepción si el valor es inválido
 interface Pagable {
-    double calcularPago() throws PagoInvalidoException;
+    // Monto calculado sin validar; es inválido si no es mayor a 0
+    double montoPago();
+    
+    // Mensaje de error para un monto inválido; solo se construye al reportarlo
+    String describirPagoInvalido(double monto);
+    
+    static boolean esPagoValido(double monto) {
+        return monto > 0;
+    }
+    
+    default double calcularPago() throws PagoInvalidoException {
+        double monto = montoPago();
+        if (!esPagoValido(monto)) {
+            throw new PagoInvalidoException(describirPagoInvalido(monto));
+        }
+        return monto;
+    }
 }
 
 interface Calificable {
-    double calcularPromedio() throws PromedioInvalidoException;
+    // Promedio actual; NaN si no hay calificaciones
+    double promedioActual();
+    
+    String describirPromedioInvalido();
+    
+    default double calcularPromedio() throws PromedioInvalidoException {
+        double promedio = promedioActual();
+        if (Double.isNaN(promedio)) {
+            throw new PromedioInvalidoException(describirPromedioInvalido());
+        }
+        return promedio;
+    }
+}
+
+// Recibe los cambios del dominio una vez aplicados (diario de eventos, etc.)
+// Se invoca mientras el objeto modificado tiene tomado su candado, así que una
+// implementación no debe tomar candados de otros objetos del dominio
+interface OyenteCambios {
+    default void personaRegistrada(Persona persona) {}
+    
+    default void idCambiado(Persona persona, String idAnterior) {}
+    
+    default void nombreCambiado(Persona persona) {}
+    
+    default void cursoRegistrado(Curso curso) {}
+    
+    default void cursoRenombrado(Curso curso) {}
+    
+    default void profesorAsignado(Curso curso) {}
+    
+    // Cambió el salario, las horas o el pago por hora de un profesor
+    default void pagoModificado(Persona profesor) {}
+    
+    default void estudianteInscrito(Curso curso, Estudiante estudiante) {}
+    
+    default void estudianteRemovido(Curso curso, Estudiante estudiante) {}
+    
+    // posicion: índice de la calificación dentro de las del estudiante
+    default void calificacionAgregada(Estudiante estudiante, int posicion, double calificacion) {}
+    
+    // Las calificaciones ya avisadas del estudiante están incluidas en los promedios de sus cursos
+    default void promediosActualizados(Estudiante estudiante) {}
 }
 
 // Excepciones personalizadas
+// Cada excepción creada se cuenta en las métricas, ya que solo se crean para lanzarse
 class PagoInvalidoException extends Exception {
     public PagoInvalidoException(String mensaje) {
         super(mensaje);
+        Metricas.GLOBAL.contar(Metricas.Contador.PAGO_INVALIDO);
     }
 }
 
 class PromedioInvalidoException extends Exception {
     public PromedioInvalidoException(String mensaje) {
         super(mensaje);
+        Metricas.GLOBAL.contar(Metricas.Contador.PROMEDIO_INVALIDO);
     }
 }
 
 // Clase abstracta Persona
 abstract class Persona {
-    protected String nombre;
-    protected String id;
+    protected volatile String nombre;
+    protected volatile String id;
+    // Sistema en el que está registrada la persona (null si aún no se registra)
+    volatile SistemaGestionCursos registro;
+    // Posición de la persona en el registro del sistema; la identifica en el diario aunque cambie su ID
+    volatile int numero = -1;
     
     public Persona(String nombre, String id) {
         this.nombre = nombre;
@@ -44,16 +183,48 @@ abstract class Persona {
     }
     
     // Setters
-    public void setNombre(String nombre) {
+    public synchronized void setNombre(String nombre) {
         this.nombre = nombre;
+        if (registro != null) {
+            registro.notificarNombreCambiado(this);
+        }
     }
     
     public void setId(String id) {
-        this.id = id;
+        SistemaGestionCursos sistema = registro;
+        if (sistema == null) {
+            this.id = id;
+            return;
+        }
+        // Con el candado de altas del sistema: el índice y el diario ven los cambios de ID en el mismo orden
+        synchronized (sistema.getCandadoAltas()) {
+            // Mantener sincronizado el índice del sistema antes de cambiar el ID
+            if (!sistema.reindexarPersona(this, id)) {
+                System.out.println("Error: Ya existe una persona con el ID: " + id);
+                return;
+            }
+            String idAnterior = this.id;
+            this.id = id;
+            sistema.notificarIdCambiado(this, idAnterior);
+        }
+    }
+    
+    // Clave de búsqueda del ID, sin distinguir mayúsculas de minúsculas
+    static String claveId(String id) {
+        return id.toLowerCase(Locale.ROOT);
+    }
+    
+    // Muestra la información en la consola
+    public void mostrarInformacion() {
+        Reporte consola = Reporte.consola(Reporte.Formato.TEXTO);
+        synchronized (consola) {
+            mostrarInformacion(consola);
+            consola.vaciar();
+        }
     }
     
-    // Método abstracto para mostrar información
-    public abstract void mostrarInformacion();
+    // Método abstracto para escribir la información en un reporte
+    public abstract void mostrarInformacion(Reporte reporte);
     
     @Override
     public String toString() {
@@ -63,7 +234,7 @@ abstract class Persona {
 
 // Clase ProfesorTiempoCompleto
 class ProfesorTiempoCompleto extends Persona implements Pagable {
-    private double salarioMensual;
+    private volatile double salarioMensual;
     
     public ProfesorTiempoCompleto(String nombre, String id, double salarioMensual) {
         super(nombre, id);
@@ -74,21 +245,30 @@ class ProfesorTiempoCompleto extends Persona implements Pagable {
         return salarioMensual;
     }
     
-    public void setSalarioMensual(double salarioMensual) {
+    public synchronized void setSalarioMensual(double salarioMensual) {
         this.salarioMensual = salarioMensual;
+        if (registro != null) {
+            registro.notificarPagoModificado(this);
+        }
     }
     
     @Override
-    public double calcularPago() throws PagoInvalidoException {
-        if (salarioMensual <= 0) {
-            throw new PagoInvalidoException("El salario mensual debe ser mayor a 0. Salario actual: " + salarioMensual);
-        }
+    public double montoPago() {
         return salarioMensual;
     }
     
     @Override
-    public void mostrarInformacion() {
-        System.out.println("Profesor Tiempo Completo - " + toString() + ", Salario Mensual: $" + salarioMensual);
+    public String describirPagoInvalido(double monto) {
+        return "El salario mensual debe ser mayor a 0. Salario actual: " + monto;
+    }
+    
+    @Override
+    public void mostrarInformacion(Reporte reporte) {
+        reporte.registro("Profesor Tiempo Completo")
+               .campo("ID", id)
+               .campo("Nombre", nombre)
+               .campoMoneda("Salario Mensual", salarioMensual)
+               .fin();
     }
 }
 
@@ -103,119 +283,388 @@ class ProfesorPorHoras extends Persona implements Pagable {
         this.pagoPorHora = pagoPorHora;
     }
     
-    public int getHorasTrabajadas() {
+    public synchronized int getHorasTrabajadas() {
         return horasTrabajadas;
     }
     
-    public void setHorasTrabajadas(int horasTrabajadas) {
+    public synchronized void setHorasTrabajadas(int horasTrabajadas) {
         this.horasTrabajadas = horasTrabajadas;
+        if (registro != null) {
+            registro.notificarPagoModificado(this);
+        }
     }
     
-    public double getPagoPorHora() {
+    public synchronized double getPagoPorHora() {
         return pagoPorHora;
     }
     
-    public void setPagoPorHora(double pagoPorHora) {
+    public synchronized void setPagoPorHora(double pagoPorHora) {
         this.pagoPorHora = pagoPorHora;
+        if (registro != null) {
+            registro.notificarPagoModificado(this);
+        }
     }
     
+    // Horas y pago por hora se leen juntos para no mezclar dos actualizaciones
     @Override
-    public double calcularPago() throws PagoInvalidoException {
-        double pagoTotal = horasTrabajadas * pagoPorHora;
-        if (pagoTotal <= 0) {
-            throw new PagoInvalidoException("El pago total debe ser mayor a 0. Pago calculado: " + pagoTotal);
-        }
-        return pagoTotal;
+    public synchronized double montoPago() {
+        return horasTrabajadas * pagoPorHora;
     }
     
     @Override
-    public void mostrarInformacion() {
-        System.out.println("Profesor Por Horas - " + toString() + 
-                         ", Horas: " + horasTrabajadas + ", Pago/Hora: $" + pagoPorHora);
+    public String describirPagoInvalido(double monto) {
+        return "El pago total debe ser mayor a 0. Pago calculado: " + monto;
+    }
+    
+    @Override
+    public void mostrarInformacion(Reporte reporte) {
+        reporte.registro("Profesor Por Horas")
+               .campo("ID", id)
+               .campo("Nombre", nombre)
+               .campo("Horas", getHorasTrabajadas())
+               .campoMoneda("Pago/Hora", getPagoPorHora())
+               .fin();
+    }
+}
+
+// Registro de calificaciones sobre un arreglo primitivo
+// Mantiene suma, mínimo, máximo y varianza acumulados (algoritmo de Welford)
+// Cada estudiante tiene su propio candado; las calificaciones solo se anexan
+class RegistroCalificaciones {
+    private static final int CAPACIDAD_INICIAL = 8;
+    
+    private double[] valores;
+    private int cantidad;
+    private double suma;
+    private double minimo;
+    private double maximo;
+    private double media;
+    private double sumaCuadradosDesviacion;
+    
+    public RegistroCalificaciones() {
+        this.valores = new double[CAPACIDAD_INICIAL];
+    }
+    
+    public synchronized void agregar(double valor) {
+        if (cantidad == valores.length) {
+            valores = Arrays.copyOf(valores, cantidad * 2);
+        }
+        valores[cantidad++] = valor;
+        suma += valor;
+        if (cantidad == 1) {
+            minimo = valor;
+            maximo = valor;
+        } else {
+            minimo = Math.min(minimo, valor);
+            maximo = Math.max(maximo, valor);
+        }
+        double delta = valor - media;
+        media += delta / cantidad;
+        sumaCuadradosDesviacion += delta * (valor - media);
+    }
+    
+    public synchronized double get(int indice) {
+        Objects.checkIndex(indice, cantidad);
+        return valores[indice];
+    }
+    
+    public synchronized int getCantidad() {
+        return cantidad;
+    }
+    
+    public synchronized boolean estaVacio() {
+        return cantidad == 0;
+    }
+    
+    public synchronized double getSuma() {
+        return suma;
+    }
+    
+    // Las estadísticas devuelven NaN mientras no haya calificaciones
+    public synchronized double getPromedio() {
+        return cantidad == 0 ? Double.NaN : suma / cantidad;
+    }
+    
+    public synchronized double getMinimo() {
+        return cantidad == 0 ? Double.NaN : minimo;
+    }
+    
+    public synchronized double getMaximo() {
+        return cantidad == 0 ? Double.NaN : maximo;
+    }
+    
+    // Varianza poblacional
+    public synchronized double getVarianza() {
+        return cantidad == 0 ? Double.NaN : sumaCuadradosDesviacion / cantidad;
+    }
+    
+    // Vista de solo lectura compatible con List<Double>, fija al momento de la llamada
+    // Las posiciones ya escritas nunca cambian, así que no hace falta copiar el arreglo
+    public synchronized List<Double> comoLista() {
+        return new VistaCalificaciones(valores, cantidad);
+    }
+    
+    private static class VistaCalificaciones extends AbstractList<Double> implements RandomAccess {
+        private final double[] valores;
+        private final int cantidad;
+        
+        VistaCalificaciones(double[] valores, int cantidad) {
+            this.valores = valores;
+            this.cantidad = cantidad;
+        }
+        
+        @Override
+        public Double get(int indice) {
+            Objects.checkIndex(indice, cantidad);
+            return valores[indice];
+        }
+        
+        @Override
+        public int size() {
+            return cantidad;
+        }
     }
 }
 
 // Clase Estudiante
 class Estudiante extends Persona implements Calificable {
-    private List<Double> calificaciones;
+    private RegistroCalificaciones calificaciones;
+    // Cursos en los que está inscrito; los mantiene Curso al inscribir y remover
+    private Set<Curso> cursos;
     
     public Estudiante(String nombre, String id) {
         super(nombre, id);
-        this.calificaciones = new ArrayList<>();
+        this.calificaciones = new RegistroCalificaciones();
+        this.cursos = ConcurrentHashMap.newKeySet();
+    }
+    
+    public Set<Curso> getCursos() {
+        return Collections.unmodifiableSet(cursos);
+    }
+    
+    void agregarCurso(Curso curso) {
+        cursos.add(curso);
+    }
+    
+    void quitarCurso(Curso curso) {
+        cursos.remove(curso);
     }
     
     public List<Double> getCalificaciones() {
+        return calificaciones.comoLista();
+    }
+    
+    public RegistroCalificaciones getRegistroCalificaciones() {
         return calificaciones;
     }
     
+    public static boolean esCalificacionValida(double calificacion) {
+        return calificacion >= 0 && calificacion <= 10;
+    }
+    
     public void agregarCalificacion(double calificacion) {
-        if (calificacion >= 0 && calificacion <= 10) {
-            calificaciones.add(calificacion);
+        if (registrarCalificacion(calificacion)) {
             System.out.println("Calificación " + calificacion + " agregada exitosamente.");
         } else {
             System.out.println("Calificación inválida. Debe estar entre 0 y 10.");
         }
     }
     
-    @Override
-    public double calcularPromedio() throws PromedioInvalidoException {
-        if (calificaciones.isEmpty()) {
-            throw new PromedioInvalidoException("El estudiante " + nombre + " no tiene calificaciones registradas.");
+    // Versión sin mensajes para cargas masivas; devuelve false si la calificación es inválida
+    public boolean registrarCalificacion(double calificacion) {
+        if (!esCalificacionValida(calificacion)) {
+            Metricas.GLOBAL.contar(Metricas.Contador.CALIFICACION_INVALIDA);
+            return false;
         }
-        
-        double suma = 0;
-        for (double calificacion : calificaciones) {
-            suma += calificacion;
+        long inicio = Metricas.inicio();
+        // El aviso se emite con el candado del registro para conservar el orden de las calificaciones
+        synchronized (calificaciones) {
+            int posicion = calificaciones.getCantidad();
+            calificaciones.agregar(calificacion);
+            if (registro != null) {
+                registro.notificarCalificacion(this, posicion, calificacion);
+            }
+        }
+        // Fuera del candado del estudiante: los cursos toman primero el suyo
+        for (Curso curso : cursos) {
+            curso.actualizarCalificaciones(this);
+        }
+        if (registro != null) {
+            registro.notificarPromediosActualizados(this);
         }
-        return suma / calificaciones.size();
+        Metricas.GLOBAL.registrar(Metricas.Operacion.REGISTRAR_CALIFICACION, inicio);
+        return true;
     }
     
-    @Override
-    public void mostrarInformacion() {
-        System.out.println("Estudiante - " + toString() + ", Calificaciones: " + calificaciones);
-        try {
-            System.out.println("Promedio: " + String.format("%.2f", calcularPromedio()));
-        } catch (PromedioInvalidoException e) {
-            System.out.println("Error: " + e.getMessage());
+    // Registra las primeras cantidad calificaciones tomando el candado una sola vez y
+    // actualizando los cursos una sola vez; omite las inválidas y devuelve cuántas registró
+    public int registrarCalificaciones(double[] valores, int cantidad) {
+        int registradas = 0;
+        synchronized (calificaciones) {
+            for (int i = 0; i < cantidad; i++) {
+                double calificacion = valores[i];
+                if (!esCalificacionValida(calificacion)) {
+                    Metricas.GLOBAL.contar(Metricas.Contador.CALIFICACION_INVALIDA);
+                    continue;
+                }
+                int posicion = calificaciones.getCantidad();
+                calificaciones.agregar(calificacion);
+                if (registro != null) {
+                    registro.notificarCalificacion(this, posicion, calificacion);
+                }
+                registradas++;
+            }
         }
+        if (registradas > 0) {
+            for (Curso curso : cursos) {
+                curso.actualizarCalificaciones(this);
+            }
+            if (registro != null) {
+                registro.notificarPromediosActualizados(this);
+            }
+        }
+        return registradas;
+    }
+    
+    @Override
+    public double promedioActual() {
+        return calificaciones.getPromedio();
+    }
+    
+    @Override
+    public String describirPromedioInvalido() {
+        return "El estudiante " + nombre + " no tiene calificaciones registradas.";
+    }
+    
+    @Override
+    public void mostrarInformacion(Reporte reporte) {
+        reporte.registro("Estudiante")
+               .campo("ID", id)
+               .campo("Nombre", nombre)
+               .campoNumeros("Calificaciones", getCalificaciones())
+               .campoDecimal("Promedio", calificaciones.getPromedio())
+               .fin();
     }
 }
 
 // Clase Curso
+// Las operaciones sobre la lista de inscritos se sincronizan con el candado de cada curso
+// Orden de candados: primero el del curso y después el de las calificaciones del estudiante
 class Curso {
-    private String nombreCurso;
-    private List<Estudiante> estudiantes;
-    private Persona profesorAsignado;
+    private volatile String nombreCurso;
+    // Estudiantes inscritos por clave de ID, en orden de inscripción
+    private Map<String, Inscripcion> estudiantes;
+    private final Collection<Estudiante> vistaEstudiantes;
+    // Agregados de las calificaciones de los inscritos, actualizados de forma incremental
+    private double sumaCalificaciones;
+    private long cantidadCalificaciones;
+    private int estudiantesEvaluados;
+    private volatile Persona profesorAsignado;
+    // Sistema en el que está registrado el curso (null si aún no se registra)
+    volatile SistemaGestionCursos registro;
+    // Posición del curso en el registro del sistema; identifica al curso en el diario
+    volatile int numero = -1;
     
     public Curso(String nombreCurso, Persona profesorAsignado) {
         this.nombreCurso = nombreCurso;
         this.profesorAsignado = profesorAsignado;
-        this.estudiantes = new ArrayList<>();
+        this.estudiantes = new LinkedHashMap<>();
+        this.vistaEstudiantes = new AbstractCollection<Estudiante>() {
+            @Override
+            public Iterator<Estudiante> iterator() {
+                Iterator<Inscripcion> inscripciones = estudiantes.values().iterator();
+                return new Iterator<Estudiante>() {
+                    @Override
+                    public boolean hasNext() {
+                        return inscripciones.hasNext();
+                    }
+                    
+                    @Override
+                    public Estudiante next() {
+                        return inscripciones.next().estudiante;
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return estudiantes.size();
+            }
+            
+            @Override
+            public boolean contains(Object objeto) {
+                if (!(objeto instanceof Estudiante)) {
+                    return false;
+                }
+                Inscripcion inscripcion = estudiantes.get(Persona.claveId(((Estudiante) objeto).getId()));
+                return inscripcion != null && inscripcion.estudiante == objeto;
+            }
+        };
     }
     
     public String getNombreCurso() {
         return nombreCurso;
     }
     
-    public void setNombreCurso(String nombreCurso) {
+    public synchronized void setNombreCurso(String nombreCurso) {
         this.nombreCurso = nombreCurso;
+        // Mantener actualizado el índice de búsqueda del sistema
+        if (registro != null) {
+            registro.reindexarCurso(this);
+            registro.notificarCursoRenombrado(this);
+        }
     }
     
-    public List<Estudiante> getEstudiantes() {
-        return estudiantes;
+    // Vista de solo lectura de los inscritos en orden de inscripción; no copia ni crea objetos
+    // salvo el iterador. No es segura ante inscripciones concurrentes: se recorre con el candado
+    // del curso (synchronized (curso)) o se copia dentro de él
+    public Collection<Estudiante> getEstudiantes() {
+        return vistaEstudiantes;
+    }
+    
+    public synchronized int getCantidadEstudiantes() {
+        return estudiantes.size();
+    }
+    
+    public synchronized double getSumaCalificaciones() {
+        return sumaCalificaciones;
+    }
+    
+    public synchronized long getCantidadCalificaciones() {
+        return cantidadCalificaciones;
+    }
+    
+    // Inscritos que tienen al menos una calificación
+    public synchronized int getEstudiantesEvaluados() {
+        return estudiantesEvaluados;
+    }
+    
+    // Promedio de todas las calificaciones de los inscritos; NaN si no hay ninguna
+    public synchronized double getPromedioCurso() {
+        return cantidadCalificaciones == 0 ? Double.NaN : sumaCalificaciones / cantidadCalificaciones;
+    }
+    
+    // La clave encuentra la inscripción; la comparación por referencia descarta a otro estudiante con el mismo ID
+    public synchronized boolean contieneEstudiante(Estudiante estudiante) {
+        Inscripcion inscripcion = estudiantes.get(Persona.claveId(estudiante.getId()));
+        return inscripcion != null && inscripcion.estudiante == estudiante;
     }
     
     public Persona getProfesorAsignado() {
         return profesorAsignado;
     }
     
-    public void setProfesorAsignado(Persona profesorAsignado) {
+    public synchronized void setProfesorAsignado(Persona profesorAsignado) {
+        Persona anterior = this.profesorAsignado;
         this.profesorAsignado = profesorAsignado;
+        if (registro != null) {
+            registro.reasignarProfesor(this, anterior, profesorAsignado);
+            registro.notificarProfesorAsignado(this);
+        }
     }
     
     public void agregarEstudiante(Estudiante estudiante) {
-        if (!estudiantes.contains(estudiante)) {
-            estudiantes.add(estudiante);
+        if (inscribir(estudiante)) {
             System.out.println("Estudiante " + estudiante.getNombre() + " agregado al curso " + nombreCurso);
         } else {
             System.out.println("El estudiante ya está registrado en el curso.");
@@ -223,170 +672,3212 @@ class Curso {
     }
     
     public void removerEstudiante(Estudiante estudiante) {
-        if (estudiantes.remove(estudiante)) {
+        if (desinscribir(estudiante)) {
             System.out.println("Estudiante " + estudiante.getNombre() + " removido del curso " + nombreCurso);
         } else {
             System.out.println("El estudiante no está registrado en el curso.");
         }
     }
     
-    public void mostrarInformacionCurso() {
-        System.out.println("\n=== INFORMACIÓN DEL CURSO ===");
-        System.out.println("Curso: " + nombreCurso);
-        System.out.println("Profesor: " + profesorAsignado.getNombre());
-        System.out.println("Número de estudiantes: " + estudiantes.size());
-        
-        if (!estudiantes.isEmpty()) {
-            System.out.println("Estudiantes matriculados:");
-            for (Estudiante estudiante : estudiantes) {
-                System.out.println("  - " + estudiante.getNombre());
-            }
+    // Versiones sin mensajes; devuelven false si no hubo cambios
+    // La latencia medida no incluye la espera por el candado del curso
+    public synchronized boolean inscribir(Estudiante estudiante) {
+        long inicio = Metricas.inicio();
+        String clave = Persona.claveId(estudiante.getId());
+        if (estudiantes.containsKey(clave)) {
+            Metricas.GLOBAL.contar(Metricas.Contador.INSCRIPCION_DUPLICADA);
+            return false;
+        }
+        Inscripcion inscripcion = new Inscripcion(estudiante);
+        estudiantes.put(clave, inscripcion);
+        estudiante.agregarCurso(this);
+        sumarAporte(inscripcion);
+        if (registro != null) {
+            registro.notificarInscripcion(this, estudiante);
         }
+        Metricas.GLOBAL.registrar(Metricas.Operacion.INSCRIBIR, inicio);
+        return true;
     }
-}
-
-// Clase principal del sistema
-class SistemaGestionCursos {
-    private List<Persona> personas;
-    private List<Curso> cursos;
-    private Scanner scanner;
     
-    public SistemaGestionCursos() {
-        this.personas = new ArrayList<>();
-        this.cursos = new ArrayList<>();
-        this.scanner = new Scanner(System.in);
+    public synchronized boolean desinscribir(Estudiante estudiante) {
+        long inicio = Metricas.inicio();
+        String clave = Persona.claveId(estudiante.getId());
+        Inscripcion inscripcion = estudiantes.get(clave);
+        if (inscripcion == null || inscripcion.estudiante != estudiante) {
+            return false;
+        }
+        estudiantes.remove(clave);
+        inscripcion.estudiante.quitarCurso(this);
+        sumaCalificaciones -= inscripcion.sumaContada;
+        cantidadCalificaciones -= inscripcion.cantidadContada;
+        if (inscripcion.cantidadContada > 0) {
+            estudiantesEvaluados--;
+        }
+        if (registro != null) {
+            registro.notificarRemocion(this, estudiante);
+        }
+        Metricas.GLOBAL.registrar(Metricas.Operacion.DESINSCRIBIR, inicio);
+        return true;
     }
     
-    public void registrarPersona(Persona persona) {
-        personas.add(persona);
-        System.out.println("Persona registrada: " + persona.getNombre());
+    // Mueve la inscripción de un estudiante que cambió de ID a su nueva clave. El mapa se reconstruye
+    // para que conserve su lugar en el orden de inscripción; cuesta O(inscritos), pero es poco frecuente
+    synchronized void reindexarEstudiante(String claveAnterior, String claveNueva, Estudiante estudiante) {
+        Inscripcion inscripcion = estudiantes.get(claveAnterior);
+        if (inscripcion == null || inscripcion.estudiante != estudiante) {
+            return;
+        }
+        Map<String, Inscripcion> reordenado = new LinkedHashMap<>();
+        for (Map.Entry<String, Inscripcion> entrada : estudiantes.entrySet()) {
+            reordenado.put(entrada.getValue() == inscripcion ? claveNueva : entrada.getKey(), entrada.getValue());
+        }
+        estudiantes.clear();
+        estudiantes.putAll(reordenado);
     }
     
-    public void registrarCurso(Curso curso) {
-        cursos.add(curso);
-        System.out.println("Curso registrado: " + curso.getNombreCurso());
+    // Incorpora las calificaciones nuevas de un estudiante inscrito
+    synchronized void actualizarCalificaciones(Estudiante estudiante) {
+        Inscripcion inscripcion = estudiantes.get(Persona.claveId(estudiante.getId()));
+        if (inscripcion != null && inscripcion.estudiante == estudiante) {
+            sumarAporte(inscripcion);
+        }
     }
     
-    // Método que demuestra polimorfismo
-    public void mostrarTodasLasPersonas() {
-        System.out.println("\n=== LISTADO DE PERSONAS (Polimorfismo) ===");
-        if (personas.isEmpty()) {
-            System.out.println("No hay personas registradas.");
+    // Suma la diferencia entre las calificaciones actuales del estudiante y las ya contadas,
+    // así una calificación nunca se cuenta dos veces aunque lleguen avisos concurrentes
+    private void sumarAporte(Inscripcion inscripcion) {
+        RegistroCalificaciones calificaciones = inscripcion.estudiante.getRegistroCalificaciones();
+        double suma;
+        int cantidad;
+        synchronized (calificaciones) {
+            suma = calificaciones.getSuma();
+            cantidad = calificaciones.getCantidad();
+        }
+        if (cantidad == inscripcion.cantidadContada) {
             return;
         }
-        for (Persona persona : personas) {
-            persona.mostrarInformacion(); // Polimorfismo - cada clase implementa su versión
+        if (inscripcion.cantidadContada == 0) {
+            estudiantesEvaluados++;
         }
+        sumaCalificaciones += suma - inscripcion.sumaContada;
+        cantidadCalificaciones += cantidad - inscripcion.cantidadContada;
+        inscripcion.sumaContada = suma;
+        inscripcion.cantidadContada = cantidad;
     }
     
-    public void mostrarTodosLosCursos() {
-        System.out.println("\n=== LISTADO DE CURSOS ===");
-        if (cursos.isEmpty()) {
-            System.out.println("No hay cursos registrados.");
-            return;
+    // Estudiante inscrito y la parte de sus calificaciones ya incluida en los agregados
+    private static class Inscripcion {
+        private final Estudiante estudiante;
+        private double sumaContada;
+        private int cantidadContada;
+        
+        Inscripcion(Estudiante estudiante) {
+            this.estudiante = estudiante;
         }
-        for (Curso curso : cursos) {
-            curso.mostrarInformacionCurso();
+    }
+    
+    public void mostrarInformacionCurso() {
+        Reporte consola = Reporte.consola(Reporte.Formato.TEXTO);
+        synchronized (consola) {
+            mostrarInformacionCurso(consola);
+            consola.vaciar();
         }
     }
     
-    public void procesarPagos() {
-        System.out.println("\n=== PROCESAMIENTO DE PAGOS ===");
-        boolean hayProfesores = false;
-        for (Persona persona : personas) {
-            if (persona instanceof Pagable) {
-                hayProfesores = true;
-                try {
-                    double pago = ((Pagable) persona).calcularPago();
-                    System.out.println("Pago para " + persona.getNombre() + ": $" + 
-                                     String.format("%.2f", pago));
-                } catch (PagoInvalidoException e) {
-                    System.out.println("Error en pago: " + e.getMessage());
-                }
+    public void mostrarInformacionCurso(Reporte reporte) {
+        // Copia tomada con el candado para no retenerlo mientras se escribe el reporte
+        List<Estudiante> inscritos;
+        double promedio;
+        synchronized (this) {
+            inscritos = new ArrayList<>(vistaEstudiantes);
+            promedio = getPromedioCurso();
+        }
+        Persona profesor = profesorAsignado;
+        reporte.registro("Curso")
+               .campo("Curso", nombreCurso)
+               .campo("Profesor", profesor == null ? "" : profesor.getNombre())
+               .campo("Número de estudiantes", inscritos.size())
+               .campoDecimal("Promedio del curso", promedio)
+               .campoLista("Estudiantes matriculados", inscritos, Persona::getNombre)
+               .fin();
+    }
+}
+
+// Índice de búsqueda de cursos por nombre
+// Los nombres se normalizan (minúsculas, sin acentos) y se indexan por trigramas y bigramas;
+// la búsqueda exacta usa un mapa directo por nombre normalizado
+// Cada entrada se actualiza de forma atómica, sin un candado global
+class IndiceCursos {
+    private static final int TAMANO_GRAMA = 3;
+    private static final int TAMANO_BIGRAMA = 2;
+    
+    private Map<String, Set<Curso>> cursosPorGrama;
+    private Map<String, Set<Curso>> cursosPorBigrama;
+    private Map<String, Set<Curso>> cursosPorNombre;
+    private Map<Curso, String> nombresNormalizados;
+    
+    public IndiceCursos() {
+        this.cursosPorGrama = new ConcurrentHashMap<>();
+        this.cursosPorBigrama = new ConcurrentHashMap<>();
+        this.cursosPorNombre = new ConcurrentHashMap<>();
+        this.nombresNormalizados = new ConcurrentHashMap<>();
+    }
+    
+    // Convierte a minúsculas y elimina acentos: "Cálculo" -> "calculo"
+    static String normalizar(String texto) {
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder normalizado = new StringBuilder(descompuesto.length());
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                normalizado.append(Character.toLowerCase(c));
             }
         }
-        if (!hayProfesores) {
-            System.out.println("No hay profesores registrados para procesar pagos.");
+        return normalizado.toString();
+    }
+    
+    public void agregar(Curso curso) {
+        String nombre = normalizar(curso.getNombreCurso());
+        nombresNormalizados.put(curso, nombre);
+        agregarEn(cursosPorNombre, nombre, curso);
+        for (int i = 0; i + TAMANO_GRAMA <= nombre.length(); i++) {
+            agregarEn(cursosPorGrama, nombre.substring(i, i + TAMANO_GRAMA), curso);
+        }
+        for (int i = 0; i + TAMANO_BIGRAMA <= nombre.length(); i++) {
+            agregarEn(cursosPorBigrama, nombre.substring(i, i + TAMANO_BIGRAMA), curso);
         }
     }
     
-    public void procesarPromedios() {
-        System.out.println("\n=== PROCESAMIENTO DE PROMEDIOS ===");
-        boolean hayEstudiantes = false;
-        for (Persona persona : personas) {
-            if (persona instanceof Calificable) {
-                hayEstudiantes = true;
-                try {
-                    double promedio = ((Calificable) persona).calcularPromedio();
-                    System.out.println("Promedio de " + persona.getNombre() + ": " + 
-                                     String.format("%.2f", promedio));
-                } catch (PromedioInvalidoException e) {
-                    System.out.println("Error en promedio: " + e.getMessage());
-                }
-            }
+    public void remover(Curso curso) {
+        String nombre = nombresNormalizados.remove(curso);
+        if (nombre == null) {
+            return;
         }
-        if (!hayEstudiantes) {
-            System.out.println("No hay estudiantes registrados para procesar promedios.");
+        removerDe(cursosPorNombre, nombre, curso);
+        for (int i = 0; i + TAMANO_GRAMA <= nombre.length(); i++) {
+            removerDe(cursosPorGrama, nombre.substring(i, i + TAMANO_GRAMA), curso);
+        }
+        for (int i = 0; i + TAMANO_BIGRAMA <= nombre.length(); i++) {
+            removerDe(cursosPorBigrama, nombre.substring(i, i + TAMANO_BIGRAMA), curso);
         }
     }
     
-    // Métodos del menú interactivo
-    public void mostrarMenu() {
-        System.out.println("\n╔══════════════════════════════════════════════╗");
-        System.out.println("║        SISTEMA DE GESTIÓN DE CURSOS          ║");
-        System.out.println("╠══════════════════════════════════════════════╣");
-        System.out.println("║  1. Registrar Profesor Tiempo Completo       ║");
-        System.out.println("║  2. Registrar Profesor Por Horas             ║");
-        System.out.println("║  3. Registrar Estudiante                     ║");
-        System.out.println("║  4. Crear Curso                              ║");
-        System.out.println("║  5. Agregar Estudiante a Curso               ║");
-        System.out.println("║  6. Agregar Calificación a Estudiante        ║");
-        System.out.println("║  7. Mostrar Todas las Personas               ║");
-        System.out.println("║  8. Mostrar Todos los Cursos                 ║");
-        System.out.println("║  9. Procesar Pagos                           ║");
-        System.out.println("║ 10. Procesar Promedios                       ║");
-        System.out.println("║ 11. Buscar Persona por ID                    ║");
-        System.out.println("║ 12. Buscar Curso por Nombre                  ║");
-        System.out.println("║  0. Salir                                    ║");
-        System.out.println("╚══════════════════════════════════════════════╝");
-        System.out.print("Seleccione una opción: ");
+    private static void agregarEn(Map<String, Set<Curso>> mapa, String clave, Curso curso) {
+        mapa.compute(clave, (texto, conjunto) -> {
+            Set<Curso> cursos = conjunto != null ? conjunto : ConcurrentHashMap.newKeySet();
+            cursos.add(curso);
+            return cursos;
+        });
     }
     
-    public void registrarProfesorTiempoCompleto() {
-        System.out.println("\n=== REGISTRAR PROFESOR TIEMPO COMPLETO ===");
-        System.out.print("Nombre: ");
-        String nombre = scanner.nextLine();
-        System.out.print("ID: ");
-        String id = scanner.nextLine();
-        System.out.print("Salario mensual: $");
-        try {
-            double salario = Double.parseDouble(scanner.nextLine());
-            ProfesorTiempoCompleto profesor = new ProfesorTiempoCompleto(nombre, id, salario);
-            registrarPersona(profesor);
-        } catch (NumberFormatException e) {
-            System.out.println("Error: Ingrese un salario válido.");
-        }
+    private static void removerDe(Map<String, Set<Curso>> mapa, String clave, Curso curso) {
+        mapa.computeIfPresent(clave, (texto, conjunto) -> {
+            conjunto.remove(curso);
+            return conjunto.isEmpty() ? null : conjunto;
+        });
     }
     
-    public void registrarProfesorPorHoras() {
-        System.out.println("\n=== REGISTRAR PROFESOR POR HORAS ===");
-        System.out.print("Nombre: ");
-        String nombre = scanner.nextLine();
-        System.out.print("ID: ");
-        String id = scanner.nextLine();
-        System.out.print("Horas trabajadas: ");
-        try {
-            int horas = Integer.parseInt(scanner.nextLine());
-            System.out.print("Pago por hora: $");
-            double pagoPorHora = Double.parseDouble(scanner.nextLine());
-            ProfesorPorHoras profesor = new ProfesorPorHoras(nombre, id, horas, pagoPorHora);
-            registrarPersona(profesor);
-        } catch (NumberFormatException e) {
-            System.out.println("Error: Ingrese valores numéricos válidos.");
+    // O(1) salvo nombres repetidos: entre cursos con el mismo nombre gana el registrado primero
+    public Curso buscarExacto(String nombre) {
+        Set<Curso> cursos = cursosPorNombre.get(normalizar(nombre));
+        if (cursos == null) {
+            return null;
         }
+        Curso primero = null;
+        for (Curso curso : cursos) {
+            if (primero == null || Integer.compareUnsigned(curso.numero, primero.numero) < 0) {
+                primero = curso;
+            }
+        }
+        return primero;
     }
     
-    public void registrarEstudiante() {
+    // Devuelve todos los cursos cuyo nombre contiene la consulta, ordenados por relevancia:
+    // coincidencia exacta, luego posición de la coincidencia y luego longitud del nombre
+    public List<Curso> buscar(String consulta) {
+        String texto = normalizar(consulta);
+        Collection<Curso> candidatos;
+        if (texto.length() >= TAMANO_GRAMA) {
+            candidatos = menorConjunto(cursosPorGrama, texto, TAMANO_GRAMA);
+        } else if (texto.length() == TAMANO_BIGRAMA) {
+            candidatos = menorConjunto(cursosPorBigrama, texto, TAMANO_BIGRAMA);
+        } else {
+            // Con una sola letra (o nada) casi todos los cursos coinciden: se recorren todos
+            candidatos = nombresNormalizados.keySet();
+        }
+        if (candidatos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        for (Curso curso : candidatos) {
+            String nombre = nombresNormalizados.get(curso);
+            if (nombre == null) {
+                // Curso removido del índice durante la búsqueda
+                continue;
+            }
+            int posicion = nombre.indexOf(texto);
+            if (posicion >= 0) {
+                coincidencias.add(new Coincidencia(curso, nombre, posicion, nombre.equals(texto)));
+            }
+        }
+        coincidencias.sort(Comparator.comparing((Coincidencia c) -> !c.exacta)
+                .thenComparingInt(c -> c.posicion)
+                .thenComparingInt(c -> c.nombre.length())
+                .thenComparing(c -> c.nombre));
+        
+        List<Curso> resultados = new ArrayList<>(coincidencias.size());
+        for (Coincidencia coincidencia : coincidencias) {
+            resultados.add(coincidencia.curso);
+        }
+        return resultados;
+    }
+    
+    // Basta con verificar la lista más corta de los gramas de la consulta; vacía si falta alguno
+    private static Set<Curso> menorConjunto(Map<String, Set<Curso>> mapa, String texto, int tamano) {
+        Set<Curso> menor = null;
+        for (int i = 0; i + tamano <= texto.length(); i++) {
+            Set<Curso> conjunto = mapa.get(texto.substring(i, i + tamano));
+            if (conjunto == null) {
+                return Collections.emptySet();
+            }
+            if (menor == null || conjunto.size() < menor.size()) {
+                menor = conjunto;
+            }
+        }
+        return menor;
+    }
+    
+    private static class Coincidencia {
+        private final Curso curso;
+        private final String nombre;
+        private final int posicion;
+        private final boolean exacta;
+        
+        Coincidencia(Curso curso, String nombre, int posicion, boolean exacta) {
+            this.curso = curso;
+            this.nombre = nombre;
+            this.posicion = posicion;
+            this.exacta = exacta;
+        }
+    }
+}
+
+// Reporte con formato de texto, CSV o JSON (un objeto por línea) sobre cualquier Writer
+// Escribe directamente en un buffer reutilizable y formatea los números sin String.format
+// Los errores de escritura se guardan y se consultan con hayError(), como en PrintWriter
+class Reporte implements Flushable {
+    public enum Formato { TEXTO, CSV, JSON }
+    
+    private static final int TAMANO_BUFFER = 1 << 16;
+    private static final long[] POTENCIAS_DIEZ = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    // Un reporte de consola por formato, con un solo buffer para todo el proceso
+    private static final Map<Formato, Reporte> CONSOLAS = new EnumMap<>(Formato.class);
+    
+    private final Writer salida;
+    private final Formato formato;
+    private final Map<String, String> clavesJson;
+    private final char[] digitos;
+    private int camposEscritos;
+    private boolean error;
+    
+    public Reporte(Writer destino, Formato formato) {
+        this.salida = destino instanceof BufferedWriter ? destino : new BufferedWriter(destino, TAMANO_BUFFER);
+        this.formato = formato;
+        this.clavesJson = new HashMap<>();
+        this.digitos = new char[20];
+    }
+    
+    // Reporte compartido sobre la salida estándar; vaciar() no la cierra
+    // Como todo Reporte, no es seguro entre hilos: quien no sea el menú se sincroniza sobre él
+    public static synchronized Reporte consola(Formato formato) {
+        return CONSOLAS.computeIfAbsent(formato, 
+                f -> new Reporte(new OutputStreamWriter(System.out, Charset.defaultCharset()), f));
+    }
+    
+    public Formato getFormato() {
+        return formato;
+    }
+    
+    // Título de sección; solo aparece en formato de texto
+    public Reporte titulo(String titulo) {
+        if (formato == Formato.TEXTO) {
+            escribir("\n=== ");
+            escribir(titulo);
+            escribir(" ===\n");
+        }
+        return this;
+    }
+    
+    // Mensaje informativo; solo aparece en formato de texto
+    public Reporte mensaje(String mensaje) {
+        if (formato == Formato.TEXTO) {
+            escribir(mensaje);
+            escribir('\n');
+        }
+        return this;
+    }
+    
+    public Reporte registro(String tipo) {
+        camposEscritos = 0;
+        switch (formato) {
+            case TEXTO:
+                escribir(tipo);
+                break;
+            case CSV:
+                escribirCsv(tipo);
+                break;
+            case JSON:
+                escribir("{\"tipo\":");
+                escribirJson(tipo);
+                break;
+        }
+        return this;
+    }
+    
+    public Reporte campo(String etiqueta, String valor) {
+        iniciarCampo(etiqueta);
+        if (formato == Formato.JSON) {
+            escribirJson(valor);
+        } else if (formato == Formato.CSV) {
+            escribirCsv(valor);
+        } else {
+            escribir(valor);
+        }
+        return this;
+    }
+    
+    public Reporte campo(String etiqueta, long valor) {
+        iniciarCampo(etiqueta);
+        escribirEntero(valor);
+        return this;
+    }
+    
+    // Número con dos decimales; NaN se muestra como N/A (null en JSON)
+    public Reporte campoDecimal(String etiqueta, double valor) {
+        iniciarCampo(etiqueta);
+        escribirDecimal(valor);
+        return this;
+    }
+    
+    public Reporte campoMoneda(String etiqueta, double valor) {
+        iniciarCampo(etiqueta);
+        if (formato == Formato.TEXTO && !Double.isNaN(valor)) {
+            escribir('$');
+        }
+        escribirDecimal(valor);
+        return this;
+    }
+    
+    public Reporte campoNumeros(String etiqueta, List<Double> valores) {
+        iniciarCampo(etiqueta);
+        abrirLista();
+        for (int i = 0; i < valores.size(); i++) {
+            separarElemento(i);
+            escribirDecimal(valores.get(i));
+        }
+        cerrarLista();
+        return this;
+    }
+    
+    public <T> Reporte campoLista(String etiqueta, Iterable<T> elementos, Function<T, String> texto) {
+        iniciarCampo(etiqueta);
+        abrirLista();
+        int i = 0;
+        for (T elemento : elementos) {
+            separarElemento(i++);
+            if (formato == Formato.JSON) {
+                escribirJson(texto.apply(elemento));
+            } else {
+                escribirSinSeparadores(texto.apply(elemento));
+            }
+        }
+        cerrarLista();
+        return this;
+    }
+    
+    public Reporte fin() {
+        if (formato == Formato.JSON) {
+            escribir('}');
+        }
+        escribir('\n');
+        return this;
+    }
+    
+    // Texto ya escrito por otro reporte del mismo formato (por ejemplo, uno guardado en caché)
+    Reporte texto(String texto) {
+        escribir(texto);
+        return this;
+    }
+    
+    @Override
+    public void flush() {
+        vaciar();
+    }
+    
+    public void vaciar() {
+        try {
+            salida.flush();
+        } catch (IOException e) {
+            error = true;
+        }
+    }
+    
+    public boolean hayError() {
+        return error;
+    }
+    
+    private void iniciarCampo(String etiqueta) {
+        switch (formato) {
+            case TEXTO:
+                escribir(camposEscritos == 0 ? " - " : ", ");
+                escribir(etiqueta);
+                escribir(": ");
+                break;
+            case CSV:
+                escribir(',');
+                break;
+            case JSON:
+                escribir(',');
+                escribirJson(clavesJson.computeIfAbsent(etiqueta, Reporte::claveJson));
+                escribir(':');
+                break;
+        }
+        camposEscritos++;
+    }
+    
+    // "Número de estudiantes" -> "numeroDeEstudiantes"
+    private static String claveJson(String etiqueta) {
+        StringBuilder clave = new StringBuilder();
+        boolean mayuscula = false;
+        for (char c : IndiceCursos.normalizar(etiqueta).toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                clave.append(mayuscula && clave.length() > 0 ? Character.toUpperCase(c) : c);
+                mayuscula = false;
+            } else {
+                mayuscula = true;
+            }
+        }
+        return clave.toString();
+    }
+    
+    private void abrirLista() {
+        if (formato == Formato.CSV) {
+            escribir('"');
+        } else {
+            escribir('[');
+        }
+    }
+    
+    private void separarElemento(int indice) {
+        if (indice > 0) {
+            escribir(formato == Formato.CSV ? ";" : formato == Formato.JSON ? "," : ", ");
+        }
+    }
+    
+    private void cerrarLista() {
+        escribir(formato == Formato.CSV ? '"' : ']');
+    }
+    
+    // Dentro de una lista CSV entre comillas no puede aparecer una comilla sin duplicar
+    private void escribirSinSeparadores(String texto) {
+        if (formato == Formato.CSV) {
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                if (c == '"') {
+                    escribir("\"\"");
+                } else {
+                    escribir(c == ';' ? ',' : c);
+                }
+            }
+        } else {
+            escribir(texto);
+        }
+    }
+    
+    private void escribirDecimal(double valor) {
+        if (Double.isNaN(valor)) {
+            escribir(formato == Formato.JSON ? "null" : formato == Formato.CSV ? "" : "N/A");
+            return;
+        }
+        escribirDecimal(valor, 2);
+    }
+    
+    // Formatea con redondeo al más cercano; valores fuera del rango de long usan Double.toString
+    private void escribirDecimal(double valor, int decimales) {
+        long escala = POTENCIAS_DIEZ[decimales];
+        double escalado = Math.abs(valor) * escala;
+        if (Double.isInfinite(valor) || escalado >= Long.MAX_VALUE) {
+            escribir(Double.toString(valor));
+            return;
+        }
+        long redondeado = Math.round(escalado);
+        if (valor < 0 && redondeado != 0) {
+            escribir('-');
+        }
+        escribirEntero(redondeado / escala);
+        escribir('.');
+        long fraccion = redondeado % escala;
+        for (long divisor = escala / 10; divisor > 0; divisor /= 10) {
+            escribir((char) ('0' + fraccion / divisor % 10));
+        }
+    }
+    
+    private void escribirEntero(long valor) {
+        if (valor == Long.MIN_VALUE) {
+            escribir(Long.toString(valor));
+            return;
+        }
+        if (valor < 0) {
+            escribir('-');
+            valor = -valor;
+        }
+        int posicion = digitos.length;
+        do {
+            digitos[--posicion] = (char) ('0' + valor % 10);
+            valor /= 10;
+        } while (valor > 0);
+        try {
+            salida.write(digitos, posicion, digitos.length - posicion);
+        } catch (IOException e) {
+            error = true;
+        }
+    }
+    
+    private void escribirCsv(String texto) {
+        boolean comillas = texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0;
+        if (!comillas) {
+            escribir(texto);
+            return;
+        }
+        escribir('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                escribir('"');
+            }
+            escribir(c);
+        }
+        escribir('"');
+    }
+    
+    private void escribirJson(String texto) {
+        escribir('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"':
+                    escribir("\\\"");
+                    break;
+                case '\\':
+                    escribir("\\\\");
+                    break;
+                case '\n':
+                    escribir("\\n");
+                    break;
+                case '\r':
+                    escribir("\\r");
+                    break;
+                case '\t':
+                    escribir("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        escribir("\\u00");
+                        escribir(Character.forDigit(c >> 4, 16));
+                        escribir(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        escribir(c);
+                    }
+            }
+        }
+        escribir('"');
+    }
+    
+    private void escribir(String texto) {
+        try {
+            salida.write(texto);
+        } catch (IOException e) {
+            error = true;
+        }
+    }
+    
+    private void escribir(char c) {
+        try {
+            salida.write(c);
+        } catch (IOException e) {
+            error = true;
+        }
+    }
+}
+
+// Resultado de una corrida de nómina: pago por profesor, total y casos inválidos
+// Puede compartir los arreglos del LibroNomina: solo se leen las primeras 'cantidad' posiciones,
+// que el libro ya no modifica una vez entregado el resultado
+class ResultadoNomina {
+    private final Persona[] profesores;
+    // Montos sin validar; los mensajes de error se construyen solo al consultarlos
+    private final double[] montos;
+    private final int cantidad;
+    private final double total;
+    private final int cantidadInvalidos;
+    
+    ResultadoNomina(Persona[] profesores, double[] montos, int cantidad, double total, int cantidadInvalidos) {
+        this.profesores = profesores;
+        this.montos = montos;
+        this.cantidad = cantidad;
+        this.total = total;
+        this.cantidadInvalidos = cantidadInvalidos;
+    }
+    
+    public int getCantidad() {
+        return cantidad;
+    }
+    
+    public Persona getProfesor(int indice) {
+        return profesores[indice];
+    }
+    
+    public boolean esValido(int indice) {
+        return Pagable.esPagoValido(montos[indice]);
+    }
+    
+    // Pago calculado; NaN si el pago del profesor es inválido
+    public double getPago(int indice) {
+        return esValido(indice) ? montos[indice] : Double.NaN;
+    }
+    
+    // Mensaje que tendría la PagoInvalidoException; null si el pago es válido
+    public String getError(int indice) {
+        return esValido(indice) ? null : ((Pagable) profesores[indice]).describirPagoInvalido(montos[indice]);
+    }
+    
+    public double getTotal() {
+        return total;
+    }
+    
+    public int getCantidadInvalidos() {
+        return cantidadInvalidos;
+    }
+    
+    public Map<Persona, String> getPagosInvalidos() {
+        Map<Persona, String> invalidos = new LinkedHashMap<>();
+        for (int i = 0; i < cantidad; i++) {
+            if (!esValido(i)) {
+                invalidos.put(profesores[i], getError(i));
+            }
+        }
+        return invalidos;
+    }
+}
+
+// Motor de nómina: calcula los pagos de un grupo de profesores, en paralelo si son muchos, sin imprimir nada
+class MotorNomina {
+    // Por debajo de este tamaño no compensa repartir el trabajo entre hilos
+    private static final int UMBRAL_PARALELO = 1024;
+    
+    // Monto sin validar de profesores[indices[j]] para cada j < cantidad
+    public static double[] calcular(Persona[] profesores, int[] indices, int cantidad) {
+        double[] montos = new double[cantidad];
+        IntStream posiciones = IntStream.range(0, cantidad);
+        if (cantidad >= UMBRAL_PARALELO) {
+            posiciones = posiciones.parallel();
+        }
+        // Cada tarea escribe solo en su propia posición del arreglo
+        posiciones.forEach(j -> montos[j] = ((Pagable) profesores[indices[j]]).montoPago());
+        return montos;
+    }
+}
+
+// Libro de nómina incremental
+// Escucha los registros de profesores y los cambios de salario, horas o pago por hora, y solo los
+// anota. actualizar() incorpora los profesores nuevos, recalcula los pendientes con MotorNomina y
+// ajusta el total acumulado, así que una vista previa de la nómina cuesta O(cambios) y no O(profesores).
+// Los montos se guardan en arreglos paralelos en orden de registro: resultado() los entrega sin copiarlos
+// y el libro copia los montos la próxima vez que tenga que modificar alguno ya entregado
+class LibroNomina implements OyenteCambios {
+    private static final int CAPACIDAD_INICIAL = 16;
+    
+    // Los avisos llegan con el candado del profesor tomado y no toman el del libro: actualizar()
+    // lo tiene mientras lee los montos, que toman el del profesor
+    private final Queue<Persona> nuevos;
+    private final Set<Persona> pendientes;
+    private final Map<Persona, Integer> posiciones;
+    private Persona[] profesores;
+    // Último monto calculado de cada profesor, sin validar (ver Pagable.montoPago)
+    private double[] montos;
+    private int cantidad;
+    // true si el último resultado() comparte el arreglo de montos
+    private boolean compartido;
+    private double total;
+    private int cantidadInvalidos;
+    private int recalculados;
+    
+    public LibroNomina() {
+        this.nuevos = new ConcurrentLinkedQueue<>();
+        this.pendientes = ConcurrentHashMap.newKeySet();
+        this.posiciones = new IdentityHashMap<>();
+        this.profesores = new Persona[CAPACIDAD_INICIAL];
+        this.montos = new double[CAPACIDAD_INICIAL];
+    }
+    
+    @Override
+    public void personaRegistrada(Persona persona) {
+        if (persona instanceof Pagable) {
+            nuevos.add(persona);
+        }
+    }
+    
+    @Override
+    public void pagoModificado(Persona profesor) {
+        pendientes.add(profesor);
+    }
+    
+    public int getCantidadPendientes() {
+        return nuevos.size() + pendientes.size();
+    }
+    
+    // Incorpora los profesores nuevos y recalcula los pendientes; devuelve cuántos montos calculó
+    public synchronized int actualizar() {
+        int primeraNueva = cantidad;
+        for (Persona profesor = nuevos.poll(); profesor != null; profesor = nuevos.poll()) {
+            agregar(profesor);
+        }
+        
+        int[] indices = new int[cantidad - primeraNueva + pendientes.size()];
+        int calcular = 0;
+        Iterator<Persona> iterador = pendientes.iterator();
+        while (iterador.hasNext()) {
+            Persona profesor = iterador.next();
+            // Se quita antes de leer el monto: un cambio posterior lo vuelve a marcar
+            iterador.remove();
+            Integer posicion = posiciones.get(profesor);
+            // Un cambio anterior al aviso de registro ya queda incluido al calcular el profesor nuevo
+            if (posicion == null || posicion >= primeraNueva) {
+                continue;
+            }
+            if (calcular == indices.length) {
+                indices = Arrays.copyOf(indices, calcular * 2);
+            }
+            indices[calcular++] = posicion;
+        }
+        int modificados = calcular;
+        if (calcular + cantidad - primeraNueva > indices.length) {
+            indices = Arrays.copyOf(indices, calcular + cantidad - primeraNueva);
+        }
+        for (int i = primeraNueva; i < cantidad; i++) {
+            indices[calcular++] = i;
+        }
+        if (calcular == 0) {
+            return 0;
+        }
+        
+        double[] calculados = MotorNomina.calcular(profesores, indices, calcular);
+        if (modificados > 0 && compartido) {
+            montos = montos.clone();
+            compartido = false;
+        }
+        for (int j = 0; j < calcular; j++) {
+            int i = indices[j];
+            if (j < modificados) {
+                quitar(montos[i]);
+            }
+            montos[i] = calculados[j];
+            sumar(calculados[j]);
+        }
+        recalculados += calcular;
+        return calcular;
+    }
+    
+    // Recalcula todos los profesores conocidos, para descartar el error de redondeo acumulado
+    public synchronized void reconstruir() {
+        actualizar();
+        int[] indices = new int[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            indices[i] = i;
+        }
+        double[] calculados = MotorNomina.calcular(profesores, indices, cantidad);
+        montos = Arrays.copyOf(calculados, profesores.length);
+        compartido = false;
+        total = 0;
+        cantidadInvalidos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            sumar(montos[i]);
+        }
+        recalculados += cantidad;
+    }
+    
+    // Total de los pagos válidos según el último actualizar()
+    public synchronized double getTotal() {
+        return total;
+    }
+    
+    public synchronized int getCantidadInvalidos() {
+        return cantidadInvalidos;
+    }
+    
+    public synchronized int getCantidadProfesores() {
+        return cantidad;
+    }
+    
+    // Montos calculados desde que se creó el libro
+    public synchronized int getRecalculados() {
+        return recalculados;
+    }
+    
+    // Monto guardado del profesor; NaN si nunca se calculó
+    public synchronized double getMonto(Persona profesor) {
+        Integer posicion = posiciones.get(profesor);
+        return posicion == null ? Double.NaN : montos[posicion];
+    }
+    
+    // Resultado con los montos del último actualizar(), en orden de registro y sin copiarlos
+    public synchronized ResultadoNomina resultado() {
+        compartido = true;
+        return new ResultadoNomina(profesores, montos, cantidad, total, cantidadInvalidos);
+    }
+    
+    // Las posiciones ya entregadas nunca cambian de profesor, así que solo hace falta copiar al crecer
+    private void agregar(Persona profesor) {
+        if (cantidad == profesores.length) {
+            profesores = Arrays.copyOf(profesores, cantidad * 2);
+            montos = Arrays.copyOf(montos, cantidad * 2);
+            compartido = false;
+        }
+        posiciones.put(profesor, cantidad);
+        profesores[cantidad++] = profesor;
+    }
+    
+    private void sumar(double monto) {
+        if (Pagable.esPagoValido(monto)) {
+            total += monto;
+        } else {
+            cantidadInvalidos++;
+        }
+    }
+    
+    private void quitar(double monto) {
+        if (Pagable.esPagoValido(monto)) {
+            total -= monto;
+        } else {
+            cantidadInvalidos--;
+        }
+    }
+}
+
+// Caché de reportes ya generados, por nombre y formato, con desalojo LRU y vencimiento (TTL)
+// Cada tipo de cambio del dominio lleva un contador de versión; una entrada guarda las versiones
+// de los cambios de los que depende al generarse y deja de valer en cuanto alguno avanza. Así un
+// aviso solo suma en un LongAdder (se recibe con candados tomados) y una calificación nueva no
+// invalida, por ejemplo, la nómina.
+class CacheReportes implements OyenteCambios {
+    public enum Cambio { ALTA_PROFESOR, ALTA_ESTUDIANTE, DATOS_PROFESOR, DATOS_ESTUDIANTE, PAGO, CURSO, INSCRIPCION, CALIFICACION }
+    
+    private static final class Entrada {
+        final String texto;
+        final EnumSet<Cambio> dependencias;
+        final long[] versiones;
+        final long creada;
+        
+        Entrada(String texto, EnumSet<Cambio> dependencias, long[] versiones, long creada) {
+            this.texto = texto;
+            this.dependencias = dependencias;
+            this.versiones = versiones;
+            this.creada = creada;
+        }
+    }
+    
+    private final int maximoEntradas;
+    private final long maximoCaracteres;
+    private final long ttlNanos;
+    private final LongAdder[] versiones;
+    // En orden de acceso: la primera entrada es la menos usada
+    private final LinkedHashMap<String, Entrada> entradas;
+    private long caracteres;
+    private final LongAdder aciertos;
+    private final LongAdder fallos;
+    private final LongAdder invalidadas;
+    private final LongAdder vencidas;
+    private final LongAdder desalojadas;
+    
+    public CacheReportes(int maximoEntradas, long maximoCaracteres, long ttlNanos) {
+        this.maximoEntradas = maximoEntradas;
+        this.maximoCaracteres = maximoCaracteres;
+        this.ttlNanos = ttlNanos;
+        this.versiones = new LongAdder[Cambio.values().length];
+        for (int i = 0; i < versiones.length; i++) {
+            versiones[i] = new LongAdder();
+        }
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true);
+        this.aciertos = new LongAdder();
+        this.fallos = new LongAdder();
+        this.invalidadas = new LongAdder();
+        this.vencidas = new LongAdder();
+        this.desalojadas = new LongAdder();
+    }
+    
+    // Escribe el reporte guardado si sigue vigente; si no, lo genera, lo guarda y lo escribe
+    public void escribir(String nombre, EnumSet<Cambio> dependencias, Reporte reporte, Consumer<Reporte> generar) {
+        String clave = nombre + ":" + reporte.getFormato();
+        Entrada entrada = buscar(clave);
+        if (entrada == null) {
+            // Las versiones se leen antes de generar: un cambio durante la generación deja la entrada vencida
+            long[] actuales = versiones(dependencias);
+            StringWriter texto = new StringWriter();
+            Reporte temporal = new Reporte(texto, reporte.getFormato());
+            generar.accept(temporal);
+            temporal.vaciar();
+            entrada = new Entrada(texto.toString(), dependencias, actuales, System.nanoTime());
+            guardar(clave, entrada);
+        }
+        reporte.texto(entrada.texto);
+    }
+    
+    private synchronized Entrada buscar(String clave) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        if (System.nanoTime() - entrada.creada > ttlNanos) {
+            vencidas.increment();
+        } else if (!Arrays.equals(entrada.versiones, versiones(entrada.dependencias))) {
+            invalidadas.increment();
+        } else {
+            aciertos.increment();
+            return entrada;
+        }
+        fallos.increment();
+        quitar(clave);
+        return null;
+    }
+    
+    private synchronized void guardar(String clave, Entrada entrada) {
+        // Un reporte más grande que la caché completa no se guarda
+        if (entrada.texto.length() > maximoCaracteres) {
+            return;
+        }
+        quitar(clave);
+        entradas.put(clave, entrada);
+        caracteres += entrada.texto.length();
+        Iterator<Entrada> menosUsadas = entradas.values().iterator();
+        while (entradas.size() > maximoEntradas || caracteres > maximoCaracteres) {
+            caracteres -= menosUsadas.next().texto.length();
+            menosUsadas.remove();
+            desalojadas.increment();
+        }
+    }
+    
+    private void quitar(String clave) {
+        Entrada anterior = entradas.remove(clave);
+        if (anterior != null) {
+            caracteres -= anterior.texto.length();
+        }
+    }
+    
+    private long[] versiones(EnumSet<Cambio> dependencias) {
+        long[] actuales = new long[dependencias.size()];
+        int i = 0;
+        for (Cambio cambio : dependencias) {
+            actuales[i++] = versiones[cambio.ordinal()].sum();
+        }
+        return actuales;
+    }
+    
+    public synchronized void limpiar() {
+        entradas.clear();
+        caracteres = 0;
+    }
+    
+    private void avisar(Cambio cambio) {
+        versiones[cambio.ordinal()].increment();
+    }
+    
+    @Override
+    public void personaRegistrada(Persona persona) {
+        avisar(persona instanceof Estudiante ? Cambio.ALTA_ESTUDIANTE : Cambio.ALTA_PROFESOR);
+    }
+    
+    @Override
+    public void idCambiado(Persona persona, String idAnterior) {
+        avisar(persona instanceof Estudiante ? Cambio.DATOS_ESTUDIANTE : Cambio.DATOS_PROFESOR);
+    }
+    
+    @Override
+    public void nombreCambiado(Persona persona) {
+        avisar(persona instanceof Estudiante ? Cambio.DATOS_ESTUDIANTE : Cambio.DATOS_PROFESOR);
+    }
+    
+    @Override
+    public void cursoRegistrado(Curso curso) {
+        avisar(Cambio.CURSO);
+    }
+    
+    @Override
+    public void cursoRenombrado(Curso curso) {
+        avisar(Cambio.CURSO);
+    }
+    
+    @Override
+    public void profesorAsignado(Curso curso) {
+        avisar(Cambio.CURSO);
+    }
+    
+    @Override
+    public void pagoModificado(Persona profesor) {
+        avisar(Cambio.PAGO);
+    }
+    
+    @Override
+    public void estudianteInscrito(Curso curso, Estudiante estudiante) {
+        avisar(Cambio.INSCRIPCION);
+    }
+    
+    @Override
+    public void estudianteRemovido(Curso curso, Estudiante estudiante) {
+        avisar(Cambio.INSCRIPCION);
+    }
+    
+    // Se avisa cuando los promedios de los cursos ya incluyen la calificación y no al agregarla:
+    // un reporte generado entre ambos momentos queda vencido en lugar de guardar la media anterior
+    @Override
+    public void promediosActualizados(Estudiante estudiante) {
+        avisar(Cambio.CALIFICACION);
+    }
+    
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+    
+    public long getFallos() {
+        return fallos.sum();
+    }
+    
+    public synchronized int getCantidadEntradas() {
+        return entradas.size();
+    }
+    
+    public void escribirEstadisticas(Reporte reporte) {
+        long totalAciertos = aciertos.sum();
+        long consultas = totalAciertos + fallos.sum();
+        int cantidad;
+        long ocupados;
+        synchronized (this) {
+            cantidad = entradas.size();
+            ocupados = caracteres;
+        }
+        reporte.registro("Caché de reportes")
+               .campo("Aciertos", totalAciertos)
+               .campo("Fallos", fallos.sum())
+               .campoDecimal("Tasa de aciertos %", consultas == 0 ? Double.NaN : 100.0 * totalAciertos / consultas)
+               .campo("Invalidadas", invalidadas.sum())
+               .campo("Vencidas", vencidas.sum())
+               .campo("Desalojadas", desalojadas.sum())
+               .campo("Entradas", cantidad)
+               .campo("Caracteres", ocupados)
+               .fin();
+    }
+}
+
+// Resultado de la agregación de promedios por estudiante, por curso e institucional
+class ResultadoPromedios {
+    // Rangos de la distribución: [0,1), [1,2), ..., [9,10]
+    public static final int RANGOS_DISTRIBUCION = 10;
+    
+    private final Estudiante[] estudiantes;
+    private final double[] promedios;
+    private final Curso[] cursos;
+    private final double[] promediosCursos;
+    private final int[] evaluadosCursos;
+    private final double[] promediosOrdenados;
+    private final int[] distribucion;
+    private final double promedioInstitucional;
+    
+    ResultadoPromedios(Estudiante[] estudiantes, double[] promedios,
+                       Curso[] cursos, double[] promediosCursos, int[] evaluadosCursos) {
+        this.estudiantes = estudiantes;
+        this.promedios = promedios;
+        this.cursos = cursos;
+        this.promediosCursos = promediosCursos;
+        this.evaluadosCursos = evaluadosCursos;
+        
+        double[] validos = new double[promedios.length];
+        int cantidad = 0;
+        double suma = 0;
+        int[] rangos = new int[RANGOS_DISTRIBUCION];
+        for (double promedio : promedios) {
+            if (!Double.isNaN(promedio)) {
+                validos[cantidad++] = promedio;
+                suma += promedio;
+                rangos[Math.min((int) promedio, RANGOS_DISTRIBUCION - 1)]++;
+            }
+        }
+        this.promediosOrdenados = Arrays.copyOf(validos, cantidad);
+        Arrays.parallelSort(promediosOrdenados);
+        this.distribucion = rangos;
+        this.promedioInstitucional = cantidad == 0 ? Double.NaN : suma / cantidad;
+    }
+    
+    public int getCantidadEstudiantes() {
+        return estudiantes.length;
+    }
+    
+    public Estudiante getEstudiante(int indice) {
+        return estudiantes[indice];
+    }
+    
+    // Indicador de estudiante sin calificaciones, en lugar de PromedioInvalidoException
+    public boolean tieneCalificaciones(int indice) {
+        return !Double.isNaN(promedios[indice]);
+    }
+    
+    // Promedio del estudiante; NaN si no tiene calificaciones
+    public double getPromedio(int indice) {
+        return promedios[indice];
+    }
+    
+    public int getCantidadEvaluados() {
+        return promediosOrdenados.length;
+    }
+    
+    public int getCantidadSinCalificaciones() {
+        return estudiantes.length - promediosOrdenados.length;
+    }
+    
+    // Promedio de los promedios de los estudiantes con calificaciones; NaN si no hay ninguno
+    public double getPromedioInstitucional() {
+        return promedioInstitucional;
+    }
+    
+    // Percentil por rango más cercano (0-100); NaN si no hay estudiantes evaluados
+    public double getPercentil(double percentil) {
+        if (promediosOrdenados.length == 0) {
+            return Double.NaN;
+        }
+        int rango = (int) Math.ceil(percentil / 100.0 * promediosOrdenados.length);
+        return promediosOrdenados[Math.max(0, Math.min(rango, promediosOrdenados.length) - 1)];
+    }
+    
+    public int[] getDistribucion() {
+        return distribucion.clone();
+    }
+    
+    public int getCantidadCursos() {
+        return cursos.length;
+    }
+    
+    public Curso getCurso(int indice) {
+        return cursos[indice];
+    }
+    
+    // Promedio de las calificaciones de los inscritos en el curso; NaN si no hay ninguna
+    public double getPromedioCurso(int indice) {
+        return promediosCursos[indice];
+    }
+    
+    public int getEvaluadosCurso(int indice) {
+        return evaluadosCursos[indice];
+    }
+}
+
+// Motor de promedios: agrega los promedios en paralelo, sin excepciones ni impresión
+class MotorPromedios {
+    private static final int UMBRAL_PARALELO = 1024;
+    
+    public static ResultadoPromedios calcular(List<Estudiante> estudiantes, List<Curso> cursos) {
+        return calcular(estudiantes, cursos, null);
+    }
+    
+    // Con almacén, sus filas coinciden con la lista de estudiantes y los promedios se leen de sus
+    // columnas; solo los estudiantes anexados que el almacén aún no recibió se leen uno por uno
+    public static ResultadoPromedios calcular(List<Estudiante> estudiantes, List<Curso> cursos,
+                                              AlmacenColumnarCalificaciones almacen) {
+        Estudiante[] copiaEstudiantes = estudiantes.toArray(new Estudiante[0]);
+        Curso[] copiaCursos = cursos.toArray(new Curso[0]);
+        
+        double[] promedios = new double[copiaEstudiantes.length];
+        int copiados = almacen == null ? 0 : almacen.copiarPromedios(promedios);
+        rango(copiaEstudiantes.length - copiados).forEach(i ->
+                promedios[copiados + i] = copiaEstudiantes[copiados + i].promedioActual());
+        
+        // Los cursos mantienen sus agregados, así que cada uno es una lectura O(1)
+        double[] promediosCursos = new double[copiaCursos.length];
+        int[] evaluadosCursos = new int[copiaCursos.length];
+        for (int j = 0; j < copiaCursos.length; j++) {
+            synchronized (copiaCursos[j]) {
+                promediosCursos[j] = copiaCursos[j].getPromedioCurso();
+                evaluadosCursos[j] = copiaCursos[j].getEstudiantesEvaluados();
+            }
+        }
+        
+        return new ResultadoPromedios(copiaEstudiantes, promedios, copiaCursos, promediosCursos, evaluadosCursos);
+    }
+    
+    private static IntStream rango(int tamano) {
+        IntStream indices = IntStream.range(0, tamano);
+        return tamano >= UMBRAL_PARALELO ? indices.parallel() : indices;
+    }
+}
+
+// Almacén columnar de los promedios de los estudiantes, fuera del heap (ByteBuffer directos)
+// Con -Dparadigmas.almacenColumnar=true el sistema lo registra como oyente desde que se crea, y
+// calcularPromedios lee los promedios de toda la población recorriendo sus columnas en lugar de
+// tomar el candado de cada estudiante. Cada estudiante es una fila densa (0, 1, 2, ...) en el orden
+// de alta, el mismo de getEstudiantes(), con la suma y la cantidad de sus calificaciones. La fila
+// se busca por el número de registro de la persona, así que los cambios de ID no la afectan.
+// Cada columna es un solo ByteBuffer, así que admite hasta 2^31 bytes por columna
+class AlmacenColumnarCalificaciones implements OyenteCambios {
+    private static final int CAPACIDAD_INICIAL = 1024;
+    private static final int NINGUNA = -1;
+    
+    // Columnas por estudiante
+    private DoubleBuffer sumas;
+    private IntBuffer cantidades;
+    // Fila de cada número de registro; NINGUNA para los profesores y los aún no avisados
+    private IntBuffer filas;
+    private int cantidadEstudiantes;
+    
+    public AlmacenColumnarCalificaciones() {
+        this.sumas = decimales(CAPACIDAD_INICIAL);
+        this.cantidades = enteros(CAPACIDAD_INICIAL);
+        this.filas = filasVacias(CAPACIDAD_INICIAL);
+    }
+    
+    // Se avisa con el candado de altas, en el mismo orden en que se anexan los estudiantes
+    @Override
+    public void personaRegistrada(Persona persona) {
+        if (!(persona instanceof Estudiante)) {
+            return;
+        }
+        // Las calificaciones registradas antes del alta (o avisadas antes de este aviso) se copian
+        // con el candado del registro, así que calificacionAgregada no las vuelve a sumar
+        RegistroCalificaciones calificaciones = ((Estudiante) persona).getRegistroCalificaciones();
+        synchronized (calificaciones) {
+            agregarEstudiante(persona.numero, calificaciones.getSuma(), calificaciones.getCantidad());
+        }
+    }
+    
+    @Override
+    public synchronized void calificacionAgregada(Estudiante estudiante, int posicion, double calificacion) {
+        int fila = fila(estudiante.numero);
+        if (fila == NINGUNA || posicion < cantidades.get(fila)) {
+            return;
+        }
+        sumas.put(fila, sumas.get(fila) + calificacion);
+        cantidades.put(fila, cantidades.get(fila) + 1);
+    }
+    
+    public synchronized int getCantidadEstudiantes() {
+        return cantidadEstudiantes;
+    }
+    
+    // Copia el promedio de las primeras filas en destino (NaN si no hay calificaciones) en una sola
+    // pasada sobre columnas contiguas; devuelve cuántas filas copió
+    public synchronized int copiarPromedios(double[] destino) {
+        int copiadas = Math.min(destino.length, cantidadEstudiantes);
+        for (int i = 0; i < copiadas; i++) {
+            int cantidad = cantidades.get(i);
+            destino[i] = cantidad == 0 ? Double.NaN : sumas.get(i) / cantidad;
+        }
+        return copiadas;
+    }
+    
+    private synchronized void agregarEstudiante(int numero, double suma, int cantidad) {
+        if (cantidadEstudiantes == sumas.capacity()) {
+            sumas = ampliar(sumas, sumas.capacity() * 2);
+            cantidades = ampliar(cantidades, cantidades.capacity() * 2);
+        }
+        if (numero >= filas.capacity()) {
+            IntBuffer nuevas = filasVacias(Math.max(filas.capacity() * 2, numero + 1));
+            nuevas.put(filas.duplicate().clear());
+            filas = nuevas.clear();
+        }
+        int fila = cantidadEstudiantes++;
+        sumas.put(fila, suma);
+        cantidades.put(fila, cantidad);
+        filas.put(numero, fila);
+    }
+    
+    private int fila(int numero) {
+        return numero < 0 || numero >= filas.capacity() ? NINGUNA : filas.get(numero);
+    }
+    
+    private static ByteBuffer bytes(int capacidad) {
+        return ByteBuffer.allocateDirect(capacidad).order(ByteOrder.nativeOrder());
+    }
+    
+    private static IntBuffer enteros(int capacidad) {
+        return bytes(capacidad * Integer.BYTES).asIntBuffer();
+    }
+    
+    private static DoubleBuffer decimales(int capacidad) {
+        return bytes(capacidad * Double.BYTES).asDoubleBuffer();
+    }
+    
+    private static IntBuffer filasVacias(int capacidad) {
+        IntBuffer nuevas = enteros(capacidad);
+        for (int i = 0; i < capacidad; i++) {
+            nuevas.put(i, NINGUNA);
+        }
+        return nuevas;
+    }
+    
+    // Las columnas anteriores se liberan cuando el recolector descarta su ByteBuffer
+    private static IntBuffer ampliar(IntBuffer anterior, int capacidad) {
+        IntBuffer nueva = enteros(capacidad);
+        nueva.put(anterior.duplicate().clear());
+        return nueva.clear();
+    }
+    
+    private static DoubleBuffer ampliar(DoubleBuffer anterior, int capacidad) {
+        DoubleBuffer nueva = decimales(capacidad);
+        nueva.put(anterior.duplicate().clear());
+        return nueva.clear();
+    }
+}
+
+// Lista de solo anexar con lecturas sin candado
+// Las escrituras se serializan con el candado de la lista; los lectores ven siempre un
+// prefijo consistente porque el tamaño se publica después de escribir el elemento
+class ListaSoloAnexo<T> extends AbstractList<T> implements RandomAccess {
+    private volatile Object[] elementos;
+    private volatile int tamano;
+    
+    public ListaSoloAnexo() {
+        this.elementos = new Object[16];
+    }
+    
+    // Devuelve la posición asignada al elemento
+    public synchronized int anexar(T elemento) {
+        Object[] actuales = elementos;
+        int posicion = tamano;
+        if (posicion == actuales.length) {
+            actuales = Arrays.copyOf(actuales, posicion * 2);
+        }
+        actuales[posicion] = elemento;
+        elementos = actuales;
+        tamano = posicion + 1;
+        return posicion;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int indice) {
+        int limite = tamano;
+        Objects.checkIndex(indice, limite);
+        return (T) elementos[indice];
+    }
+    
+    @Override
+    public int size() {
+        return tamano;
+    }
+    
+    // Recorre los elementos presentes al crear el iterador
+    @Override
+    public Iterator<T> iterator() {
+        int limite = tamano;
+        Object[] instantanea = elementos;
+        return new Iterator<T>() {
+            private int siguiente;
+            
+            @Override
+            public boolean hasNext() {
+                return siguiente < limite;
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (siguiente >= limite) {
+                    throw new NoSuchElementException();
+                }
+                return (T) instantanea[siguiente++];
+            }
+        };
+    }
+    
+    @Override
+    public Object[] toArray() {
+        int limite = tamano;
+        return Arrays.copyOf(elementos, limite);
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E> E[] toArray(E[] destino) {
+        int limite = tamano;
+        Object[] instantanea = elementos;
+        E[] copia = destino.length >= limite ? destino : (E[]) java.lang.reflect.Array.newInstance(destino.getClass().getComponentType(), limite);
+        System.arraycopy(instantanea, 0, copia, 0, limite);
+        if (copia.length > limite) {
+            copia[limite] = null;
+        }
+        return copia;
+    }
+}
+
+// Error de una fila durante la importación masiva
+class ErrorImportacion {
+    private final long linea;
+    private final String mensaje;
+    
+    public ErrorImportacion(long linea, String mensaje) {
+        this.linea = linea;
+        this.mensaje = mensaje;
+    }
+    
+    public long getLinea() {
+        return linea;
+    }
+    
+    public String getMensaje() {
+        return mensaje;
+    }
+    
+    @Override
+    public String toString() {
+        return "Línea " + linea + ": " + mensaje;
+    }
+}
+
+// Resumen de la importación de un archivo
+class ResultadoImportacion {
+    // Solo se conservan los primeros errores; el resto solo se cuenta
+    static final int MAXIMO_ERRORES_GUARDADOS = 1000;
+    
+    private final String archivo;
+    private long filas;
+    private long aceptadas;
+    private long rechazadas;
+    private long nanos;
+    private final List<ErrorImportacion> errores;
+    
+    ResultadoImportacion(String archivo) {
+        this.archivo = archivo;
+        this.errores = new ArrayList<>();
+    }
+    
+    void registrarAceptada() {
+        filas++;
+        aceptadas++;
+    }
+    
+    void registrarError(long linea, String mensaje) {
+        filas++;
+        rechazadas++;
+        if (errores.size() < MAXIMO_ERRORES_GUARDADOS) {
+            errores.add(new ErrorImportacion(linea, mensaje));
+        }
+    }
+    
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+    
+    public String getArchivo() {
+        return archivo;
+    }
+    
+    public long getFilas() {
+        return filas;
+    }
+    
+    public long getAceptadas() {
+        return aceptadas;
+    }
+    
+    public long getRechazadas() {
+        return rechazadas;
+    }
+    
+    public List<ErrorImportacion> getErrores() {
+        return Collections.unmodifiableList(errores);
+    }
+    
+    public double getFilasPorSegundo() {
+        return nanos == 0 ? 0 : filas * 1_000_000_000.0 / nanos;
+    }
+    
+    public void mostrarResumen() {
+        System.out.println("\n=== IMPORTACIÓN: " + archivo + " ===");
+        System.out.println("Filas procesadas: " + filas + " (aceptadas: " + aceptadas + ", rechazadas: " + rechazadas + ")");
+        System.out.println("Velocidad: " + String.format("%.0f", getFilasPorSegundo()) + " filas/s");
+        for (ErrorImportacion error : errores) {
+            System.out.println("  " + error);
+        }
+        if (rechazadas > errores.size()) {
+            System.out.println("  ... y " + (rechazadas - errores.size()) + " errores más");
+        }
+    }
+}
+
+// Importación masiva no interactiva desde archivos CSV o JSONL
+// Cada fila indica su tipo: PROFESOR_TC, PROFESOR_HORAS, ESTUDIANTE, CURSO, INSCRIPCION o CALIFICACION
+//   CSV:   PROFESOR_TC,nombre,id,salario | PROFESOR_HORAS,nombre,id,horas,pagoPorHora
+//          ESTUDIANTE,nombre,id | CURSO,nombre,profesor | INSCRIPCION,curso,estudiante
+//          CALIFICACION,estudiante,calificacion
+//   JSONL: {"tipo":"CURSO","nombre":"Álgebra","profesor":"P01"} (mismos nombres de campo)
+class ImportadorMasivo {
+    private static final int TAMANO_BUFFER = 1 << 16;
+    private static final Map<String, String[]> COLUMNAS_CSV = Map.of(
+            "PROFESOR_TC", new String[] {"nombre", "id", "salario"},
+            "PROFESOR_HORAS", new String[] {"nombre", "id", "horas", "pagoPorHora"},
+            "ESTUDIANTE", new String[] {"nombre", "id"},
+            "CURSO", new String[] {"nombre", "profesor"},
+            "INSCRIPCION", new String[] {"curso", "estudiante"},
+            "CALIFICACION", new String[] {"estudiante", "calificacion"});
+    
+    private final SistemaGestionCursos sistema;
+    
+    public ImportadorMasivo(SistemaGestionCursos sistema) {
+        this.sistema = sistema;
+    }
+    
+    // El formato se elige por la extensión: .jsonl/.json para JSONL, cualquier otra para CSV
+    public ResultadoImportacion importar(Path archivo) throws IOException {
+        String nombreArchivo = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean jsonl = nombreArchivo.endsWith(".jsonl") || nombreArchivo.endsWith(".json");
+        ResultadoImportacion resultado = new ResultadoImportacion(archivo.toString());
+        long inicio = System.nanoTime();
+        
+        try (BufferedReader lector = new BufferedReader(
+                Channels.newReader(FileChannel.open(archivo, StandardOpenOption.READ), StandardCharsets.UTF_8), TAMANO_BUFFER)) {
+            String linea;
+            long numeroLinea = 0;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                String contenido = linea.trim();
+                if (contenido.isEmpty() || contenido.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    Map<String, String> campos = jsonl ? leerJson(contenido) : leerCsv(contenido);
+                    if (campos == null) {
+                        // Encabezado CSV
+                        continue;
+                    }
+                    aplicar(campos);
+                    resultado.registrarAceptada();
+                } catch (IllegalArgumentException e) {
+                    resultado.registrarError(numeroLinea, e.getMessage());
+                }
+            }
+        }
+        resultado.setNanos(System.nanoTime() - inicio);
+        return resultado;
+    }
+    
+    // Aplica una fila ya leída; también la usa el servidor HTTP
+    void aplicar(Map<String, String> campos) {
+        String tipo = requerido(campos, "tipo").toUpperCase(Locale.ROOT);
+        switch (tipo) {
+            case "PROFESOR_TC": {
+                ProfesorTiempoCompleto profesor = new ProfesorTiempoCompleto(
+                        requerido(campos, "nombre"), requerido(campos, "id"), numero(campos, "salario"));
+                validarPago(profesor);
+                registrar(profesor);
+                break;
+            }
+            case "PROFESOR_HORAS": {
+                ProfesorPorHoras profesor = new ProfesorPorHoras(requerido(campos, "nombre"), requerido(campos, "id"),
+                        entero(campos, "horas"), numero(campos, "pagoPorHora"));
+                validarPago(profesor);
+                registrar(profesor);
+                break;
+            }
+            case "ESTUDIANTE":
+                registrar(new Estudiante(requerido(campos, "nombre"), requerido(campos, "id")));
+                break;
+            case "CURSO": {
+                Persona profesor = sistema.buscarPersonaPorId(requerido(campos, "profesor"));
+                if (!(profesor instanceof Pagable)) {
+                    throw new IllegalArgumentException("No existe un profesor con el ID: " + campos.get("profesor"));
+                }
+                sistema.agregarCurso(new Curso(requerido(campos, "nombre"), profesor));
+                break;
+            }
+            case "INSCRIPCION": {
+                Curso curso = curso(campos);
+                if (!curso.inscribir(estudiante(campos))) {
+                    throw new IllegalArgumentException("El estudiante ya está registrado en el curso.");
+                }
+                break;
+            }
+            case "CALIFICACION": {
+                double calificacion = numero(campos, "calificacion");
+                if (!estudiante(campos).registrarCalificacion(calificacion)) {
+                    throw new IllegalArgumentException("Calificación inválida. Debe estar entre 0 y 10.");
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Tipo de fila desconocido: " + tipo);
+        }
+    }
+    
+    // Misma regla que calcularPago: el pago debe ser mayor a 0
+    private static void validarPago(Pagable profesor) {
+        double monto = profesor.montoPago();
+        if (!Pagable.esPagoValido(monto)) {
+            throw new IllegalArgumentException(profesor.describirPagoInvalido(monto));
+        }
+    }
+    
+    private void registrar(Persona persona) {
+        if (!sistema.agregarPersona(persona)) {
+            throw new IllegalArgumentException("Ya existe una persona con el ID: " + persona.getId());
+        }
+    }
+    
+    private Estudiante estudiante(Map<String, String> campos) {
+        Persona persona = sistema.buscarPersonaPorId(requerido(campos, "estudiante"));
+        if (!(persona instanceof Estudiante)) {
+            throw new IllegalArgumentException("No existe un estudiante con el ID: " + campos.get("estudiante"));
+        }
+        return (Estudiante) persona;
+    }
+    
+    private Curso curso(Map<String, String> campos) {
+        Curso curso = sistema.buscarCursoExacto(requerido(campos, "curso"));
+        if (curso == null) {
+            throw new IllegalArgumentException("No existe el curso: " + campos.get("curso"));
+        }
+        return curso;
+    }
+    
+    private static String requerido(Map<String, String> campos, String nombre) {
+        String valor = campos.get(nombre);
+        if (valor == null || valor.isEmpty()) {
+            throw new IllegalArgumentException("Falta el campo '" + nombre + "'");
+        }
+        return valor;
+    }
+    
+    // parseDouble acepta "NaN", "Infinity" y desbordes como "1e999"; ninguno es un monto ni una calificación
+    private static double numero(Map<String, String> campos, String nombre) {
+        double valor;
+        try {
+            valor = Double.parseDouble(requerido(campos, nombre));
+        } catch (NumberFormatException e) {
+            valor = Double.NaN;
+        }
+        if (!Double.isFinite(valor)) {
+            throw new IllegalArgumentException("Valor numérico inválido en '" + nombre + "': " + campos.get(nombre));
+        }
+        return valor;
+    }
+    
+    private static int entero(Map<String, String> campos, String nombre) {
+        try {
+            return Integer.parseInt(requerido(campos, nombre));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor entero inválido en '" + nombre + "': " + campos.get(nombre));
+        }
+    }
+    
+    // Devuelve null para la fila de encabezado ("tipo,...")
+    static Map<String, String> leerCsv(String linea) {
+        List<String> valores = dividirCsv(linea);
+        String tipo = valores.get(0).toUpperCase(Locale.ROOT);
+        if (tipo.equals("TIPO")) {
+            return null;
+        }
+        String[] columnas = COLUMNAS_CSV.get(tipo);
+        if (columnas == null) {
+            throw new IllegalArgumentException("Tipo de fila desconocido: " + valores.get(0));
+        }
+        if (valores.size() - 1 != columnas.length) {
+            throw new IllegalArgumentException("Se esperaban " + columnas.length + " columnas para " + tipo + 
+                                               " y se encontraron " + (valores.size() - 1));
+        }
+        Map<String, String> campos = new HashMap<>();
+        campos.put("tipo", tipo);
+        for (int i = 0; i < columnas.length; i++) {
+            campos.put(columnas[i], valores.get(i + 1));
+        }
+        return campos;
+    }
+    
+    // Divide una línea CSV; admite campos entre comillas con comillas dobles escapadas
+    static List<String> dividirCsv(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                valores.add(actual.toString().trim());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        valores.add(actual.toString().trim());
+        return valores;
+    }
+    
+    // Lee un objeto JSON plano: valores de texto, numéricos, booleanos o null
+    static Map<String, String> leerJson(String linea) {
+        Map<String, String> campos = new HashMap<>();
+        int[] posicion = {saltarEspacios(linea, 0)};
+        esperar(linea, posicion, '{');
+        if (siguiente(linea, posicion) == '}') {
+            posicion[0]++;
+            return campos;
+        }
+        while (true) {
+            String clave = leerTextoJson(linea, posicion);
+            esperar(linea, posicion, ':');
+            String valor;
+            if (siguiente(linea, posicion) == '"') {
+                valor = leerTextoJson(linea, posicion);
+            } else {
+                int inicio = posicion[0];
+                while (posicion[0] < linea.length() && ",} \t".indexOf(linea.charAt(posicion[0])) < 0) {
+                    posicion[0]++;
+                }
+                valor = linea.substring(inicio, posicion[0]);
+                if (valor.equals("null")) {
+                    valor = null;
+                }
+            }
+            campos.put(clave, valor);
+            char c = siguiente(linea, posicion);
+            posicion[0]++;
+            if (c == '}') {
+                return campos;
+            }
+            if (c != ',') {
+                throw new IllegalArgumentException("JSON inválido en la posición " + posicion[0]);
+            }
+        }
+    }
+    
+    private static String leerTextoJson(String linea, int[] posicion) {
+        esperar(linea, posicion, '"');
+        StringBuilder texto = new StringBuilder();
+        while (posicion[0] < linea.length()) {
+            char c = linea.charAt(posicion[0]++);
+            if (c == '"') {
+                return texto.toString();
+            }
+            if (c == '\\' && posicion[0] < linea.length()) {
+                char escape = linea.charAt(posicion[0]++);
+                switch (escape) {
+                    case 'n':
+                        texto.append('\n');
+                        break;
+                    case 't':
+                        texto.append('\t');
+                        break;
+                    case 'r':
+                        texto.append('\r');
+                        break;
+                    case 'u':
+                        if (posicion[0] + 4 > linea.length()) {
+                            throw new IllegalArgumentException("Escape \\u incompleto");
+                        }
+                        texto.append((char) Integer.parseInt(linea.substring(posicion[0], posicion[0] + 4), 16));
+                        posicion[0] += 4;
+                        break;
+                    default:
+                        texto.append(escape);
+                }
+            } else {
+                texto.append(c);
+            }
+        }
+        throw new IllegalArgumentException("Texto JSON sin cerrar");
+    }
+    
+    private static char siguiente(String linea, int[] posicion) {
+        posicion[0] = saltarEspacios(linea, posicion[0]);
+        if (posicion[0] >= linea.length()) {
+            throw new IllegalArgumentException("JSON incompleto");
+        }
+        return linea.charAt(posicion[0]);
+    }
+    
+    private static void esperar(String linea, int[] posicion, char esperado) {
+        if (siguiente(linea, posicion) != esperado) {
+            throw new IllegalArgumentException("JSON inválido: se esperaba '" + esperado + "' en la posición " + posicion[0]);
+        }
+        posicion[0]++;
+    }
+    
+    private static int saltarEspacios(String linea, int posicion) {
+        while (posicion < linea.length() && Character.isWhitespace(linea.charAt(posicion))) {
+            posicion++;
+        }
+        return posicion;
+    }
+}
+
+// Lote de calificaciones en arreglos paralelos: ID del estudiante, nombre del curso (o null
+// si no se exige inscripción) y calificación. Se llena y se envía a IngestaCalificaciones;
+// después de enviarlo ya no se debe modificar
+class LoteCalificaciones {
+    private final String[] estudiantes;
+    private final String[] cursos;
+    private final double[] calificaciones;
+    private int cantidad;
+    // Momento del envío, para medir la espera en la cola
+    long nanosEnvio;
+    
+    public LoteCalificaciones(int capacidad) {
+        this.estudiantes = new String[capacidad];
+        this.cursos = new String[capacidad];
+        this.calificaciones = new double[capacidad];
+    }
+    
+    // Devuelve false si el lote ya está lleno
+    public boolean agregar(String estudiante, String curso, double calificacion) {
+        if (cantidad == estudiantes.length) {
+            return false;
+        }
+        estudiantes[cantidad] = estudiante;
+        cursos[cantidad] = curso;
+        calificaciones[cantidad] = calificacion;
+        cantidad++;
+        return true;
+    }
+    
+    public int getCantidad() {
+        return cantidad;
+    }
+    
+    public boolean estaLleno() {
+        return cantidad == estudiantes.length;
+    }
+    
+    String getEstudiante(int indice) {
+        return estudiantes[indice];
+    }
+    
+    String getCurso(int indice) {
+        return cursos[indice];
+    }
+    
+    double getCalificacion(int indice) {
+        return calificaciones[indice];
+    }
+}
+
+// Estadísticas de un lote ya aplicado
+class ResultadoLote {
+    private final long numero;
+    private final int recibidas;
+    private final int aplicadas;
+    private final int invalidas;
+    private final int estudiantesInexistentes;
+    private final int cursosInexistentes;
+    private final int noInscritos;
+    private final long nanosEspera;
+    private final long nanosProceso;
+    
+    ResultadoLote(long numero, int recibidas, int aplicadas, int invalidas, int estudiantesInexistentes,
+                  int cursosInexistentes, int noInscritos, long nanosEspera, long nanosProceso) {
+        this.numero = numero;
+        this.recibidas = recibidas;
+        this.aplicadas = aplicadas;
+        this.invalidas = invalidas;
+        this.estudiantesInexistentes = estudiantesInexistentes;
+        this.cursosInexistentes = cursosInexistentes;
+        this.noInscritos = noInscritos;
+        this.nanosEspera = nanosEspera;
+        this.nanosProceso = nanosProceso;
+    }
+    
+    // Número de lote, en el orden en que se aplicaron (desde 1)
+    public long getNumero() {
+        return numero;
+    }
+    
+    public int getRecibidas() {
+        return recibidas;
+    }
+    
+    public int getAplicadas() {
+        return aplicadas;
+    }
+    
+    // Fuera del rango 0-10
+    public int getInvalidas() {
+        return invalidas;
+    }
+    
+    public int getEstudiantesInexistentes() {
+        return estudiantesInexistentes;
+    }
+    
+    public int getCursosInexistentes() {
+        return cursosInexistentes;
+    }
+    
+    public int getNoInscritos() {
+        return noInscritos;
+    }
+    
+    public int getRechazadas() {
+        return recibidas - aplicadas;
+    }
+    
+    // Tiempo en la cola, desde el envío hasta que se empezó a aplicar
+    public long getNanosEspera() {
+        return nanosEspera;
+    }
+    
+    public long getNanosProceso() {
+        return nanosProceso;
+    }
+    
+    public double getCalificacionesPorSegundo() {
+        return nanosProceso == 0 ? 0 : recibidas * 1_000_000_000.0 / nanosProceso;
+    }
+    
+    @Override
+    public String toString() {
+        return "Lote " + numero + ": " + aplicadas + "/" + recibidas + " aplicadas (inválidas: " + invalidas + 
+               ", estudiantes inexistentes: " + estudiantesInexistentes + ", cursos inexistentes: " + cursosInexistentes + 
+               ", no inscritos: " + noInscritos + "), espera " + nanosEspera / 1_000_000 + " ms, proceso " + 
+               nanosProceso / 1_000_000 + " ms, " + String.format("%.0f", getCalificacionesPorSegundo()) + " calificaciones/s";
+    }
+}
+
+// Canal de carga masiva de calificaciones
+// Los productores envían lotes a una cola acotada; si está llena, enviar() se bloquea hasta que
+// haya lugar (contrapresión). Un solo hilo aplica los lotes en orden, así las calificaciones de un
+// estudiante conservan el orden de envío. Dentro de cada lote se valida el rango en una sola
+// pasada, se agrupan las filas por estudiante para buscarlo una sola vez y se registran sus
+// calificaciones con una sola toma de su candado
+class IngestaCalificaciones implements Closeable {
+    public static final int TAMANO_LOTE = 10_000;
+    
+    // Lote vacío que indica al hilo aplicador que termine
+    private static final LoteCalificaciones FIN = new LoteCalificaciones(0);
+    
+    private final SistemaGestionCursos sistema;
+    private final BlockingQueue<LoteCalificaciones> cola;
+    private final Consumer<ResultadoLote> alAplicar;
+    private final Thread aplicador;
+    private final LongAdder aplicadas;
+    private final LongAdder rechazadas;
+    private long lotesAplicados;
+    private boolean cerrada;
+    // Llamadas a enviar() que ya pasaron la verificación de cierre y aún no encolan su lote
+    private int enviosEnCurso;
+    
+    // alAplicar se invoca en el hilo aplicador después de cada lote
+    public IngestaCalificaciones(SistemaGestionCursos sistema, int capacidadCola, Consumer<ResultadoLote> alAplicar) {
+        this.sistema = sistema;
+        this.cola = new ArrayBlockingQueue<>(capacidadCola);
+        this.alAplicar = alAplicar;
+        this.aplicadas = new LongAdder();
+        this.rechazadas = new LongAdder();
+        this.aplicador = new Thread(this::aplicarLotes, "ingesta-calificaciones");
+        this.aplicador.start();
+    }
+    
+    // Bloquea mientras la cola esté llena. Un lote aceptado siempre queda antes del FIN que
+    // encola close(): close() espera a que terminen los envíos en curso antes de encolarlo
+    public void enviar(LoteCalificaciones lote) throws InterruptedException {
+        synchronized (this) {
+            if (cerrada) {
+                throw new IllegalStateException("La ingesta ya está cerrada.");
+            }
+            enviosEnCurso++;
+        }
+        try {
+            lote.nanosEnvio = System.nanoTime();
+            cola.put(lote);
+        } finally {
+            synchronized (this) {
+                if (--enviosEnCurso == 0) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+    
+    public long getAplicadas() {
+        return aplicadas.sum();
+    }
+    
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+    
+    // Carga un archivo CSV con columnas estudiante,curso,calificacion (curso puede ir vacío)
+    // Devuelve la cantidad de filas leídas; las estadísticas llegan por alAplicar
+    public long cargarArchivo(Path archivo) throws IOException, InterruptedException {
+        long filas = 0;
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            LoteCalificaciones lote = new LoteCalificaciones(TAMANO_LOTE);
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (linea.isBlank() || linea.startsWith("#") || linea.regionMatches(true, 0, "estudiante,", 0, 11)) {
+                    continue;
+                }
+                List<String> columnas = ImportadorMasivo.dividirCsv(linea);
+                String curso = columnas.size() > 2 && !columnas.get(1).isEmpty() ? columnas.get(1) : null;
+                double calificacion;
+                try {
+                    calificacion = Double.parseDouble(columnas.get(columnas.size() - 1));
+                } catch (NumberFormatException e) {
+                    // Se contará como calificación inválida
+                    calificacion = Double.NaN;
+                }
+                lote.agregar(columnas.get(0), curso, calificacion);
+                filas++;
+                if (lote.estaLleno()) {
+                    enviar(lote);
+                    lote = new LoteCalificaciones(TAMANO_LOTE);
+                }
+            }
+            if (lote.getCantidad() > 0) {
+                enviar(lote);
+            }
+        }
+        return filas;
+    }
+    
+    // Espera a que se apliquen todos los lotes enviados y detiene el hilo aplicador
+    @Override
+    public void close() {
+        boolean interrumpido = false;
+        synchronized (this) {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            // Los envíos en curso avanzan porque el aplicador sigue vaciando la cola
+            while (enviosEnCurso > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                }
+            }
+        }
+        while (true) {
+            try {
+                cola.put(FIN);
+                aplicador.join();
+                break;
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void aplicarLotes() {
+        while (true) {
+            LoteCalificaciones lote;
+            try {
+                lote = cola.take();
+            } catch (InterruptedException e) {
+                // Solo close() detiene al aplicador, así no se pierden lotes ya aceptados
+                continue;
+            }
+            if (lote == FIN) {
+                return;
+            }
+            ResultadoLote resultado = aplicar(lote, ++lotesAplicados);
+            aplicadas.add(resultado.getAplicadas());
+            rechazadas.add(resultado.getRechazadas());
+            if (alAplicar != null) {
+                alAplicar.accept(resultado);
+            }
+        }
+    }
+    
+    private ResultadoLote aplicar(LoteCalificaciones lote, long numero) {
+        long inicio = System.nanoTime();
+        int cantidad = lote.getCantidad();
+        
+        // Validación del rango en una sola pasada
+        boolean[] validas = new boolean[cantidad];
+        int invalidas = 0;
+        for (int i = 0; i < cantidad; i++) {
+            validas[i] = Estudiante.esCalificacionValida(lote.getCalificacion(i));
+            if (!validas[i]) {
+                invalidas++;
+            }
+        }
+        
+        // Agrupa las filas válidas por estudiante en listas enlazadas sobre arreglos,
+        // conservando el orden del lote dentro de cada grupo
+        Map<String, Integer> grupos = new HashMap<>();
+        int[] primera = new int[cantidad];
+        int[] ultima = new int[cantidad];
+        int[] siguiente = new int[cantidad];
+        int cantidadGrupos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (!validas[i]) {
+                continue;
+            }
+            siguiente[i] = -1;
+            Integer grupo = grupos.putIfAbsent(Persona.claveId(lote.getEstudiante(i)), cantidadGrupos);
+            if (grupo == null) {
+                primera[cantidadGrupos] = i;
+                ultima[cantidadGrupos] = i;
+                cantidadGrupos++;
+            } else {
+                siguiente[ultima[grupo]] = i;
+                ultima[grupo] = i;
+            }
+        }
+        
+        // Una búsqueda por estudiante y por curso; las calificaciones de cada estudiante se
+        // registran juntas
+        Map<String, Curso> cursos = new HashMap<>();
+        double[] pendientes = new double[cantidad];
+        int aplicadasLote = 0;
+        int estudiantesInexistentes = 0;
+        int cursosInexistentes = 0;
+        int noInscritos = 0;
+        for (int g = 0; g < cantidadGrupos; g++) {
+            Persona persona = sistema.buscarPersonaPorId(lote.getEstudiante(primera[g]));
+            if (!(persona instanceof Estudiante)) {
+                for (int i = primera[g]; i >= 0; i = siguiente[i]) {
+                    estudiantesInexistentes++;
+                }
+                continue;
+            }
+            Estudiante estudiante = (Estudiante) persona;
+            int cantidadPendientes = 0;
+            for (int i = primera[g]; i >= 0; i = siguiente[i]) {
+                String nombreCurso = lote.getCurso(i);
+                if (nombreCurso != null) {
+                    Curso curso = cursos.computeIfAbsent(nombreCurso, sistema::buscarCursoExacto);
+                    if (curso == null) {
+                        cursosInexistentes++;
+                        continue;
+                    }
+                    if (!curso.contieneEstudiante(estudiante)) {
+                        noInscritos++;
+                        continue;
+                    }
+                }
+                pendientes[cantidadPendientes++] = lote.getCalificacion(i);
+            }
+            aplicadasLote += estudiante.registrarCalificaciones(pendientes, cantidadPendientes);
+        }
+        
+        long fin = System.nanoTime();
+        Metricas.GLOBAL.registrar(Metricas.Operacion.INGESTA_LOTE, inicio);
+        return new ResultadoLote(numero, cantidad, aplicadasLote, invalidas, estudiantesInexistentes,
+                                 cursosInexistentes, noInscritos, inicio - lote.nanosEnvio, fin - inicio);
+    }
+}
+
+// Página de resultados; el cursor indica dónde continuar la consulta
+// Los cursores son posiciones en las listas de registro, que solo crecen, así que siguen
+// siendo válidos aunque se registren más personas o cursos entre una página y otra
+class Pagina<T> {
+    private final List<T> elementos;
+    private final int siguienteCursor;
+    
+    Pagina(List<T> elementos, int siguienteCursor) {
+        this.elementos = elementos;
+        this.siguienteCursor = siguienteCursor;
+    }
+    
+    public List<T> getElementos() {
+        return Collections.unmodifiableList(elementos);
+    }
+    
+    // Cursor de la página siguiente; -1 si no hay más resultados
+    public int getSiguienteCursor() {
+        return siguienteCursor;
+    }
+    
+    public boolean hayMas() {
+        return siguienteCursor >= 0;
+    }
+}
+
+// Filtro para consultar personas por páginas
+class ConsultaPersonas {
+    private Class<? extends Persona> tipo = Persona.class;
+    private String prefijoNombre = "";
+    private Curso curso;
+    
+    public static ConsultaPersonas todas() {
+        return new ConsultaPersonas();
+    }
+    
+    public ConsultaPersonas deTipo(Class<? extends Persona> tipo) {
+        this.tipo = tipo;
+        return this;
+    }
+    
+    // Inicio del nombre, sin distinguir mayúsculas
+    public ConsultaPersonas conPrefijo(String prefijoNombre) {
+        this.prefijoNombre = prefijoNombre;
+        return this;
+    }
+    
+    // Solo estudiantes inscritos en el curso
+    public ConsultaPersonas inscritasEn(Curso curso) {
+        this.curso = curso;
+        return this;
+    }
+    
+    public Class<? extends Persona> getTipo() {
+        return tipo;
+    }
+    
+    public boolean acepta(Persona persona) {
+        if (!tipo.isInstance(persona) || !empiezaCon(persona.getNombre(), prefijoNombre)) {
+            return false;
+        }
+        return curso == null || (persona instanceof Estudiante && curso.contieneEstudiante((Estudiante) persona));
+    }
+    
+    static boolean empiezaCon(String texto, String prefijo) {
+        return texto.regionMatches(true, 0, prefijo, 0, prefijo.length());
+    }
+}
+
+// Histograma de latencias con cubetas de potencias de 2 (en nanosegundos)
+// Cada cubeta es un LongAdder: registrar no toma candados ni crea objetos.
+// Los percentiles se reportan como el límite superior de su cubeta (error máximo de 2x)
+class HistogramaLatencia {
+    private static final int CUBETAS = 64;
+    
+    private final LongAdder[] cubetas;
+    private final LongAdder suma;
+    private final LongAccumulator maximo;
+    
+    public HistogramaLatencia() {
+        this.cubetas = new LongAdder[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas[i] = new LongAdder();
+        }
+        this.suma = new LongAdder();
+        this.maximo = new LongAccumulator(Math::max, 0);
+    }
+    
+    // La cubeta i guarda valores en [2^(i-1), 2^i - 1]; la 0 guarda el 0
+    static int cubeta(long nanos) {
+        return nanos <= 0 ? 0 : CUBETAS - Long.numberOfLeadingZeros(nanos);
+    }
+    
+    public void registrar(long nanos) {
+        cubetas[Math.min(cubeta(nanos), CUBETAS - 1)].increment();
+        suma.add(nanos);
+        maximo.accumulate(nanos);
+    }
+    
+    public void reiniciar() {
+        for (LongAdder cubeta : cubetas) {
+            cubeta.reset();
+        }
+        suma.reset();
+        maximo.reset();
+    }
+    
+    // Copia de los valores actuales; con escrituras concurrentes puede no ser exacta al instante
+    public Instantanea instantanea() {
+        long[] conteos = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            conteos[i] = cubetas[i].sum();
+        }
+        return new Instantanea(conteos, suma.sum(), maximo.get());
+    }
+    
+    static class Instantanea {
+        private final long[] conteos;
+        private final long cantidad;
+        private final long suma;
+        private final long maximo;
+        
+        Instantanea(long[] conteos, long suma, long maximo) {
+            this.conteos = conteos;
+            long total = 0;
+            for (long conteo : conteos) {
+                total += conteo;
+            }
+            this.cantidad = total;
+            this.suma = suma;
+            this.maximo = maximo;
+        }
+        
+        public long getCantidad() {
+            return cantidad;
+        }
+        
+        public long getSumaNanos() {
+            return suma;
+        }
+        
+        public long getMaximoNanos() {
+            return maximo;
+        }
+        
+        // NaN si no hay mediciones
+        public double getPromedioNanos() {
+            return cantidad == 0 ? Double.NaN : (double) suma / cantidad;
+        }
+        
+        // Percentil por rango más cercano; 0 si no hay mediciones
+        public long getPercentilNanos(double percentil) {
+            if (cantidad == 0) {
+                return 0;
+            }
+            long rango = Math.max(1, (long) Math.ceil(percentil / 100.0 * cantidad));
+            long acumulado = 0;
+            for (int i = 0; i < conteos.length; i++) {
+                acumulado += conteos[i];
+                if (acumulado >= rango) {
+                    long limite = i == 0 ? 0 : i == 63 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(limite, maximo);
+                }
+            }
+            return maximo;
+        }
+    }
+}
+
+// Contadores y latencias de las operaciones principales, compartidos por todo el proceso
+// (las excepciones y los cálculos de Pagable/Calificable no conocen a su sistema).
+// Se desactivan con -Dparadigmas.sinMetricas=true; entonces no se lee el reloj
+final class Metricas {
+    static final boolean ACTIVAS = !Boolean.getBoolean("paradigmas.sinMetricas");
+    static final Metricas GLOBAL = new Metricas();
+    
+    enum Operacion {
+        AGREGAR_PERSONA, AGREGAR_CURSO, BUSCAR_PERSONA, BUSCAR_CURSO, BUSCAR_CURSO_EXACTO,
+        INSCRIBIR, DESINSCRIBIR, REGISTRAR_CALIFICACION, PROCESAR_PAGOS, PROCESAR_PROMEDIOS,
+        CALCULAR_NOMINA, CALCULAR_PROMEDIOS, SOLICITUD_HTTP, INGESTA_LOTE
+    }
+    
+    enum Contador {
+        PAGO_INVALIDO, PROMEDIO_INVALIDO, ID_DUPLICADO, INSCRIPCION_DUPLICADA, CALIFICACION_INVALIDA
+    }
+    
+    private final HistogramaLatencia[] latencias;
+    private final LongAdder[] contadores;
+    private volatile long inicioMedicion;
+    
+    private Metricas() {
+        this.latencias = new HistogramaLatencia[Operacion.values().length];
+        for (int i = 0; i < latencias.length; i++) {
+            latencias[i] = new HistogramaLatencia();
+        }
+        this.contadores = new LongAdder[Contador.values().length];
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] = new LongAdder();
+        }
+        this.inicioMedicion = System.currentTimeMillis();
+    }
+    
+    // Marca de tiempo para registrar(); 0 si las métricas están desactivadas
+    static long inicio() {
+        return ACTIVAS ? System.nanoTime() : 0;
+    }
+    
+    public void registrar(Operacion operacion, long inicio) {
+        if (ACTIVAS) {
+            latencias[operacion.ordinal()].registrar(System.nanoTime() - inicio);
+        }
+    }
+    
+    public void contar(Contador contador) {
+        if (ACTIVAS) {
+            contadores[contador.ordinal()].increment();
+        }
+    }
+    
+    public void reiniciar() {
+        for (HistogramaLatencia latencia : latencias) {
+            latencia.reiniciar();
+        }
+        for (LongAdder contador : contadores) {
+            contador.reset();
+        }
+        inicioMedicion = System.currentTimeMillis();
+    }
+    
+    public InstantaneaMetricas instantanea() {
+        HistogramaLatencia.Instantanea[] copiaLatencias = new HistogramaLatencia.Instantanea[latencias.length];
+        for (int i = 0; i < latencias.length; i++) {
+            copiaLatencias[i] = latencias[i].instantanea();
+        }
+        long[] copiaContadores = new long[contadores.length];
+        for (int i = 0; i < contadores.length; i++) {
+            copiaContadores[i] = contadores[i].sum();
+        }
+        return new InstantaneaMetricas(copiaLatencias, copiaContadores, System.currentTimeMillis() - inicioMedicion);
+    }
+    
+    // Escribe una instantánea en un archivo; el formato se elige como en los reportes
+    public void volcar(Path archivo, Reporte.Formato formato) throws IOException {
+        try (Writer destino = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            Reporte reporte = new Reporte(destino, formato);
+            instantanea().escribir(reporte);
+            reporte.vaciar();
+            if (reporte.hayError()) {
+                throw new IOException("No se pudieron escribir las métricas en " + archivo);
+            }
+        }
+    }
+}
+
+// Valores de las métricas en un momento dado
+class InstantaneaMetricas {
+    private final HistogramaLatencia.Instantanea[] latencias;
+    private final long[] contadores;
+    private final long milisegundosMedidos;
+    
+    InstantaneaMetricas(HistogramaLatencia.Instantanea[] latencias, long[] contadores, long milisegundosMedidos) {
+        this.latencias = latencias;
+        this.contadores = contadores;
+        this.milisegundosMedidos = milisegundosMedidos;
+    }
+    
+    public HistogramaLatencia.Instantanea getLatencia(Metricas.Operacion operacion) {
+        return latencias[operacion.ordinal()];
+    }
+    
+    public long getContador(Metricas.Contador contador) {
+        return contadores[contador.ordinal()];
+    }
+    
+    // Tiempo desde el inicio o el último reinicio de las métricas
+    public long getMilisegundosMedidos() {
+        return milisegundosMedidos;
+    }
+    
+    // Una fila por operación con mediciones y una por contador
+    public void escribir(Reporte reporte) {
+        reporte.titulo("MÉTRICAS");
+        reporte.registro("Periodo")
+               .campo("Milisegundos", milisegundosMedidos)
+               .fin();
+        for (Metricas.Operacion operacion : Metricas.Operacion.values()) {
+            HistogramaLatencia.Instantanea latencia = getLatencia(operacion);
+            if (latencia.getCantidad() == 0) {
+                continue;
+            }
+            reporte.registro("Operación")
+                   .campo("Nombre", operacion.name())
+                   .campo("Cantidad", latencia.getCantidad())
+                   .campoDecimal("Promedio ns", latencia.getPromedioNanos())
+                   .campo("P50 ns", latencia.getPercentilNanos(50))
+                   .campo("P99 ns", latencia.getPercentilNanos(99))
+                   .campo("P999 ns", latencia.getPercentilNanos(99.9))
+                   .campo("Max ns", latencia.getMaximoNanos())
+                   .fin();
+        }
+        for (Metricas.Contador contador : Metricas.Contador.values()) {
+            reporte.registro("Contador")
+                   .campo("Nombre", contador.name())
+                   .campo("Valor", getContador(contador))
+                   .fin();
+        }
+    }
+}
+
+// Clase principal del sistema
+// Seguro para varios hilos escritores: el índice de IDs es un ConcurrentHashMap y cada
+// lista de registro tiene su propio candado de escritura; las lecturas no se bloquean
+class SistemaGestionCursos {
+    private static final int TAMANO_PAGINA_MENU = 20;
+    static final int TAMANO_PAGINA_LISTADO = 50;
+    private static final int MAXIMO_REPORTES_CACHE = 32;
+    private static final long MAXIMO_CARACTERES_CACHE = 32L << 20;
+    private static final long TTL_REPORTES_CACHE_NANOS = TimeUnit.MINUTES.toNanos(5);
+    // Cambios que alteran cada reporte; una calificación nueva no invalida la nómina
+    private static final EnumSet<CacheReportes.Cambio> DEPENDENCIAS_PAGOS = EnumSet.of(
+            CacheReportes.Cambio.ALTA_PROFESOR, CacheReportes.Cambio.DATOS_PROFESOR, CacheReportes.Cambio.PAGO);
+    private static final EnumSet<CacheReportes.Cambio> DEPENDENCIAS_PROMEDIOS = EnumSet.of(
+            CacheReportes.Cambio.ALTA_ESTUDIANTE, CacheReportes.Cambio.DATOS_ESTUDIANTE,
+            CacheReportes.Cambio.CALIFICACION, CacheReportes.Cambio.INSCRIPCION, CacheReportes.Cambio.CURSO);
+    private static final EnumSet<CacheReportes.Cambio> DEPENDENCIAS_CURSOS = EnumSet.of(
+            CacheReportes.Cambio.CURSO, CacheReportes.Cambio.INSCRIPCION, CacheReportes.Cambio.CALIFICACION,
+            CacheReportes.Cambio.DATOS_ESTUDIANTE, CacheReportes.Cambio.DATOS_PROFESOR);
+    
+    private ListaSoloAnexo<Persona> personas;
+    private Map<String, Persona> personasPorId;
+    // Particiones por tipo, actualizadas al registrar personas
+    private ListaSoloAnexo<Persona> profesores;
+    private ListaSoloAnexo<ProfesorTiempoCompleto> profesoresTiempoCompleto;
+    private ListaSoloAnexo<ProfesorPorHoras> profesoresPorHoras;
+    private ListaSoloAnexo<Estudiante> estudiantes;
+    private ListaSoloAnexo<Curso> cursos;
+    // Las altas y los cambios de ID se avisan con este candado, así que el número de registro y el
+    // orden del diario coinciden con el del índice; la instantánea lo toma para fijar su corte
+    private final Object candadoAltas = new Object();
+    private IndiceCursos indiceCursos;
+    private List<OyenteCambios> oyentes;
+    private LibroNomina libroNomina;
+    // Cursos de cada profesor asignado; los de cada estudiante los guarda Estudiante
+    private Map<Persona, Set<Curso>> cursosPorProfesor;
+    // Carga en segundo plano de los datos persistidos (--inicio-rapido); null cuando no hay o ya terminó
+    private volatile CargaDiferida cargaDiferida;
+    // Con la carga fallida los datos están incompletos y el menú no acepta cambios
+    private volatile IOException errorCarga;
+    // Reportes generados, válidos hasta que cambian los datos que muestran
+    private final CacheReportes cacheReportes;
+    // Promedios de la población fuera del heap (-Dparadigmas.almacenColumnar=true); null sin él
+    private final AlmacenColumnarCalificaciones almacenColumnar;
+    // Reporte reutilizable sobre la consola para los listados del menú
+    private Reporte consola;
+    private Scanner scanner;
+    
+    public SistemaGestionCursos() {
+        this(Boolean.getBoolean("paradigmas.almacenColumnar"));
+    }
+    
+    // El almacén se registra antes de cualquier alta para que sus filas sigan la lista de estudiantes
+    public SistemaGestionCursos(boolean almacenColumnar) {
+        this.personas = new ListaSoloAnexo<>();
+        this.personasPorId = new ConcurrentHashMap<>();
+        this.profesores = new ListaSoloAnexo<>();
+        this.profesoresTiempoCompleto = new ListaSoloAnexo<>();
+        this.profesoresPorHoras = new ListaSoloAnexo<>();
+        this.estudiantes = new ListaSoloAnexo<>();
+        this.cursos = new ListaSoloAnexo<>();
+        this.indiceCursos = new IndiceCursos();
+        this.oyentes = new CopyOnWriteArrayList<>();
+        this.cursosPorProfesor = new ConcurrentHashMap<>();
+        this.libroNomina = new LibroNomina();
+        this.oyentes.add(libroNomina);
+        this.cacheReportes = new CacheReportes(MAXIMO_REPORTES_CACHE, MAXIMO_CARACTERES_CACHE, TTL_REPORTES_CACHE_NANOS);
+        this.oyentes.add(cacheReportes);
+        if (almacenColumnar) {
+            this.almacenColumnar = new AlmacenColumnarCalificaciones();
+            this.oyentes.add(this.almacenColumnar);
+        } else {
+            this.almacenColumnar = null;
+        }
+        this.consola = Reporte.consola(Reporte.Formato.TEXTO);
+        this.scanner = new Scanner(System.in);
+    }
+    
+    public boolean registrarPersona(Persona persona) {
+        if (!agregarPersona(persona)) {
+            System.out.println("Error: Ya existe una persona con el ID: " + persona.getId());
+            return false;
+        }
+        System.out.println("Persona registrada: " + persona.getNombre());
+        return true;
+    }
+    
+    // Versión sin mensajes para cargas masivas
+    public boolean agregarPersona(Persona persona) {
+        long inicio = Metricas.inicio();
+        synchronized (candadoAltas) {
+            // El índice rechaza IDs duplicados para que las búsquedas no sean ambiguas; solo se
+            // modifica con este candado, así que la comprobación y la inserción no se separan
+            String clave = Persona.claveId(persona.getId());
+            if (personasPorId.containsKey(clave)) {
+                Metricas.GLOBAL.contar(Metricas.Contador.ID_DUPLICADO);
+                return false;
+            }
+            // El número se fija antes de publicar a la persona, para que nadie la vea sin él
+            persona.numero = personas.size();
+            personasPorId.put(clave, persona);
+            persona.registro = this;
+            personas.anexar(persona);
+            if (persona instanceof ProfesorTiempoCompleto) {
+                profesores.anexar(persona);
+                profesoresTiempoCompleto.anexar((ProfesorTiempoCompleto) persona);
+            } else if (persona instanceof ProfesorPorHoras) {
+                profesores.anexar(persona);
+                profesoresPorHoras.anexar((ProfesorPorHoras) persona);
+            } else if (persona instanceof Estudiante) {
+                estudiantes.anexar((Estudiante) persona);
+            }
+            for (OyenteCambios oyente : oyentes) {
+                oyente.personaRegistrada(persona);
+            }
+        }
+        Metricas.GLOBAL.registrar(Metricas.Operacion.AGREGAR_PERSONA, inicio);
+        return true;
+    }
+    
+    Object getCandadoAltas() {
+        return candadoAltas;
+    }
+    
+    // Actualiza el índice cuando una persona registrada cambia de ID; se llama con el candado de altas
+    boolean reindexarPersona(Persona persona, String nuevoId) {
+        String claveAnterior = Persona.claveId(persona.getId());
+        String claveNueva = Persona.claveId(nuevoId);
+        if (claveNueva.equals(claveAnterior)) {
+            return true;
+        }
+        if (personasPorId.putIfAbsent(claveNueva, persona) != null) {
+            return false;
+        }
+        personasPorId.remove(claveAnterior, persona);
+        if (persona instanceof Estudiante) {
+            for (Curso curso : ((Estudiante) persona).getCursos()) {
+                curso.reindexarEstudiante(claveAnterior, claveNueva, (Estudiante) persona);
+            }
+        }
+        return true;
+    }
+    
+    public Persona buscarPersonaPorId(String id) {
+        long inicio = Metricas.inicio();
+        Persona persona = personasPorId.get(Persona.claveId(id));
+        CargaDiferida carga = cargaDiferida;
+        if (persona == null && carga != null) {
+            persona = carga.buscarPersona(id);
+            if (persona == null) {
+                // La carga pudo terminar mientras tanto
+                persona = personasPorId.get(Persona.claveId(id));
+            }
+        }
+        Metricas.GLOBAL.registrar(Metricas.Operacion.BUSCAR_PERSONA, inicio);
+        return persona;
+    }
+    
+    public void registrarCurso(Curso curso) {
+        agregarCurso(curso);
+        System.out.println("Curso registrado: " + curso.getNombreCurso());
+    }
+    
+    // Versión sin mensajes para cargas masivas
+    public void agregarCurso(Curso curso) {
+        long inicio = Metricas.inicio();
+        // Con el candado del curso para que un cambio de profesor simultáneo no se pierda
+        synchronized (curso) {
+            curso.registro = this;
+            reasignarProfesor(curso, null, curso.getProfesorAsignado());
+        }
+        synchronized (candadoAltas) {
+            curso.numero = cursos.anexar(curso);
+            indiceCursos.agregar(curso);
+            for (OyenteCambios oyente : oyentes) {
+                oyente.cursoRegistrado(curso);
+            }
+        }
+        Metricas.GLOBAL.registrar(Metricas.Operacion.AGREGAR_CURSO, inicio);
+    }
+    
+    public void agregarOyente(OyenteCambios oyente) {
+        oyentes.add(oyente);
+    }
+    
+    public void removerOyente(OyenteCambios oyente) {
+        oyentes.remove(oyente);
+    }
+    
+    // Avisos emitidos por las entidades registradas al cambiar
+    void notificarIdCambiado(Persona persona, String idAnterior) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.idCambiado(persona, idAnterior);
+        }
+    }
+    
+    void notificarNombreCambiado(Persona persona) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.nombreCambiado(persona);
+        }
+    }
+    
+    void notificarCursoRenombrado(Curso curso) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.cursoRenombrado(curso);
+        }
+    }
+    
+    void notificarProfesorAsignado(Curso curso) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.profesorAsignado(curso);
+        }
+    }
+    
+    void notificarInscripcion(Curso curso, Estudiante estudiante) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.estudianteInscrito(curso, estudiante);
+        }
+    }
+    
+    void notificarRemocion(Curso curso, Estudiante estudiante) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.estudianteRemovido(curso, estudiante);
+        }
+    }
+    
+    void notificarPagoModificado(Persona profesor) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.pagoModificado(profesor);
+        }
+    }
+    
+    void notificarCalificacion(Estudiante estudiante, int posicion, double calificacion) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.calificacionAgregada(estudiante, posicion, calificacion);
+        }
+    }
+    
+    void notificarPromediosActualizados(Estudiante estudiante) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.promediosActualizados(estudiante);
+        }
+    }
+    
+    // Vistas de solo lectura en orden de registro
+    public List<Persona> getPersonas() {
+        return personas;
+    }
+    
+    public List<Curso> getCursos() {
+        return cursos;
+    }
+    
+    // Consultas por páginas: recorren la lista de registro desde el cursor y se detienen al
+    // llenar la página, así que la memoria usada depende del tamaño de página
+    public Pagina<Persona> paginaPersonas(ConsultaPersonas consulta, int cursor, int tamano) {
+        Class<? extends Persona> tipo = consulta.getTipo();
+        List<? extends Persona> origen = personas;
+        if (tipo == Estudiante.class) {
+            origen = estudiantes;
+        } else if (tipo == ProfesorTiempoCompleto.class) {
+            origen = profesoresTiempoCompleto;
+        } else if (tipo == ProfesorPorHoras.class) {
+            origen = profesoresPorHoras;
+        }
+        return paginar(origen, consulta::acepta, cursor, tamano);
+    }
+    
+    public Pagina<Persona> paginaProfesores(String prefijoNombre, int cursor, int tamano) {
+        return paginar(profesores, profesor -> ConsultaPersonas.empiezaCon(profesor.getNombre(), prefijoNombre), cursor, tamano);
+    }
+    
+    public Pagina<Estudiante> paginaEstudiantes(String prefijoNombre, Curso curso, int cursor, int tamano) {
+        ConsultaPersonas consulta = ConsultaPersonas.todas().conPrefijo(prefijoNombre).inscritasEn(curso);
+        return paginar(estudiantes, consulta::acepta, cursor, tamano);
+    }
+    
+    public Pagina<Curso> paginaCursos(String prefijoNombre, int cursor, int tamano) {
+        return paginar(cursos, curso -> ConsultaPersonas.empiezaCon(curso.getNombreCurso(), prefijoNombre), cursor, tamano);
+    }
+    
+    private static <T> Pagina<T> paginar(List<? extends T> origen, Predicate<? super T> filtro, int cursor, int tamano) {
+        List<T> elementos = new ArrayList<>(tamano);
+        int limite = origen.size();
+        int posicion = Math.max(cursor, 0);
+        while (posicion < limite && elementos.size() < tamano) {
+            T elemento = origen.get(posicion++);
+            if (filtro.test(elemento)) {
+                elementos.add(elemento);
+            }
+        }
+        return new Pagina<>(elementos, posicion < limite ? posicion : -1);
+    }
+    
+    // Mantiene cursosPorProfesor; se llama con el candado del curso tomado
+    void reasignarProfesor(Curso curso, Persona anterior, Persona nuevo) {
+        if (anterior != null) {
+            cursosPorProfesor.computeIfPresent(anterior, (profesor, impartidos) -> {
+                impartidos.remove(curso);
+                return impartidos.isEmpty() ? null : impartidos;
+            });
+        }
+        if (nuevo != null) {
+            cursosPorProfesor.computeIfAbsent(nuevo, profesor -> ConcurrentHashMap.newKeySet()).add(curso);
+        }
+    }
+    
+    // Consultas de relaciones: cuestan O(tamaño del resultado), sin recorrer todos los cursos.
+    // Los cursos se devuelven en orden de registro
+    public List<Curso> getCursosDeProfesor(Persona profesor) {
+        return ordenarPorRegistro(cursosPorProfesor.getOrDefault(profesor, Collections.emptySet()));
+    }
+    
+    public List<Curso> getCursosDeEstudiante(Estudiante estudiante) {
+        return ordenarPorRegistro(estudiante.getCursos());
+    }
+    
+    // Estudiantes distintos inscritos en alguno de los cursos del profesor
+    public Set<Estudiante> getEstudiantesDeProfesor(Persona profesor) {
+        Set<Estudiante> alumnos = new LinkedHashSet<>();
+        for (Curso curso : getCursosDeProfesor(profesor)) {
+            synchronized (curso) {
+                alumnos.addAll(curso.getEstudiantes());
+            }
+        }
+        return alumnos;
+    }
+    
+    // Versiones masivas, por ejemplo para todos los profesores o estudiantes de un departamento
+    public Map<Persona, List<Curso>> getCursosDeProfesores(Collection<? extends Persona> profesores) {
+        Map<Persona, List<Curso>> resultado = new LinkedHashMap<>();
+        for (Persona profesor : profesores) {
+            resultado.put(profesor, getCursosDeProfesor(profesor));
+        }
+        return resultado;
+    }
+    
+    public Map<Estudiante, List<Curso>> getCursosDeEstudiantes(Collection<Estudiante> estudiantes) {
+        Map<Estudiante, List<Curso>> resultado = new LinkedHashMap<>();
+        for (Estudiante estudiante : estudiantes) {
+            resultado.put(estudiante, getCursosDeEstudiante(estudiante));
+        }
+        return resultado;
+    }
+    
+    private static List<Curso> ordenarPorRegistro(Collection<Curso> cursos) {
+        List<Curso> ordenados = new ArrayList<>(cursos);
+        ordenados.sort(Comparator.comparingInt(curso -> curso.numero));
+        return ordenados;
+    }
+    
+    // Curso por su posición de registro; null si no existe
+    public Curso getCurso(int numero) {
+        return numero >= 0 && numero < cursos.size() ? cursos.get(numero) : null;
+    }
+    
+    // Persona por su posición de registro; null si no existe
+    public Persona getPersona(int numero) {
+        return numero >= 0 && numero < personas.size() ? personas.get(numero) : null;
+    }
+    
+    // Actualiza el índice cuando un curso registrado cambia de nombre
+    void reindexarCurso(Curso curso) {
+        indiceCursos.remover(curso);
+        indiceCursos.agregar(curso);
+    }
+    
+    public List<Curso> buscarCursoPorNombre(String nombre) {
+        long inicio = Metricas.inicio();
+        // La búsqueda parcial necesita todos los cursos en el índice
+        esperarCargaDiferida();
+        List<Curso> encontrados = indiceCursos.buscar(nombre);
+        Metricas.GLOBAL.registrar(Metricas.Operacion.BUSCAR_CURSO, inicio);
+        return encontrados;
+    }
+    
+    // Curso cuyo nombre normalizado coincide exactamente; null si no existe
+    public Curso buscarCursoExacto(String nombre) {
+        long inicio = Metricas.inicio();
+        Curso curso = indiceCursos.buscarExacto(nombre);
+        CargaDiferida carga = cargaDiferida;
+        if (curso == null && carga != null) {
+            curso = carga.buscarCurso(nombre);
+            if (curso == null) {
+                curso = indiceCursos.buscarExacto(nombre);
+            }
+        }
+        Metricas.GLOBAL.registrar(Metricas.Operacion.BUSCAR_CURSO_EXACTO, inicio);
+        return curso;
+    }
+    
+    void setCargaDiferida(CargaDiferida cargaDiferida) {
+        this.cargaDiferida = cargaDiferida;
+    }
+    
+    // Bloquea hasta que los datos persistidos estén completos; vuelve enseguida si no hay carga pendiente
+    public void esperarCargaDiferida() {
+        CargaDiferida carga = cargaDiferida;
+        if (carga != null && !carga.isTerminada() && !carga.esHiloDeCarga()) {
+            carga.esperarFin();
+        }
+    }
+    
+    void setErrorCarga(IOException errorCarga) {
+        this.errorCarga = errorCarga;
+    }
+    
+    // Método que demuestra polimorfismo
+    public void mostrarTodasLasPersonas() {
+        mostrarTodasLasPersonas(consola);
+        consola.vaciar();
+    }
+    
+    public void mostrarTodasLasPersonas(Reporte reporte) {
+        reporte.titulo("LISTADO DE PERSONAS (Polimorfismo)");
+        if (personas.isEmpty()) {
+            reporte.mensaje("No hay personas registradas.");
+            return;
+        }
+        for (Persona persona : personas) {
+            persona.mostrarInformacion(reporte); // Polimorfismo - cada clase implementa su versión
+        }
+    }
+    
+    public void mostrarTodosLosCursos() {
+        mostrarTodosLosCursos(consola);
+        consola.vaciar();
+    }
+    
+    public void mostrarTodosLosCursos(Reporte reporte) {
+        cacheReportes.escribir("cursos", DEPENDENCIAS_CURSOS, reporte, this::generarListadoCursos);
+    }
+    
+    private void generarListadoCursos(Reporte reporte) {
+        reporte.titulo("LISTADO DE CURSOS");
+        if (cursos.isEmpty()) {
+            reporte.mensaje("No hay cursos registrados.");
+            return;
+        }
+        for (Curso curso : cursos) {
+            curso.mostrarInformacionCurso(reporte);
+        }
+    }
+    
+    // Solo se recalculan los profesores registrados o modificados desde la última nómina
+    public ResultadoNomina calcularNomina() {
+        long inicio = Metricas.inicio();
+        libroNomina.actualizar();
+        ResultadoNomina nomina = libroNomina.resultado();
+        Metricas.GLOBAL.registrar(Metricas.Operacion.CALCULAR_NOMINA, inicio);
+        return nomina;
+    }
+    
+    public void procesarPagos() {
+        procesarPagos(consola);
+        consola.vaciar();
+    }
+    
+    public void procesarPagos(Reporte reporte) {
+        long inicio = Metricas.inicio();
+        cacheReportes.escribir("pagos", DEPENDENCIAS_PAGOS, reporte, this::generarPagos);
+        Metricas.GLOBAL.registrar(Metricas.Operacion.PROCESAR_PAGOS, inicio);
+    }
+    
+    private void generarPagos(Reporte reporte) {
+        reporte.titulo("PROCESAMIENTO DE PAGOS");
+        if (profesores.isEmpty()) {
+            reporte.mensaje("No hay profesores registrados para procesar pagos.");
+            return;
+        }
+        ResultadoNomina nomina = calcularNomina();
+        for (int i = 0; i < nomina.getCantidad(); i++) {
+            Persona profesor = nomina.getProfesor(i);
+            reporte.registro("Pago")
+                   .campo("ID", profesor.getId())
+                   .campo("Profesor", profesor.getNombre());
+            if (nomina.esValido(i)) {
+                reporte.campoMoneda("Monto", nomina.getPago(i));
+            } else {
+                reporte.campoMoneda("Monto", Double.NaN)
+                       .campo("Error", nomina.getError(i));
+            }
+            reporte.fin();
+        }
+        reporte.registro("Total de la nómina")
+               .campoMoneda("Monto", nomina.getTotal())
+               .campo("Pagos inválidos", nomina.getCantidadInvalidos())
+               .fin();
+    }
+    
+    public LibroNomina getLibroNomina() {
+        return libroNomina;
+    }
+    
+    // Total de la nómina sin listar a cada profesor; cuesta O(cambios desde la última consulta)
+    public void resumirNomina(Reporte reporte) {
+        int recalculados = libroNomina.actualizar();
+        reporte.registro("Resumen de la nómina")
+               .campoMoneda("Total", libroNomina.getTotal())
+               .campo("Profesores", libroNomina.getCantidadProfesores())
+               .campo("Pagos inválidos", libroNomina.getCantidadInvalidos())
+               .campo("Recalculados", recalculados)
+               .fin();
+    }
+    
+    public ResultadoPromedios calcularPromedios() {
+        long inicio = Metricas.inicio();
+        ResultadoPromedios resultado = MotorPromedios.calcular(estudiantes, cursos, almacenColumnar);
+        Metricas.GLOBAL.registrar(Metricas.Operacion.CALCULAR_PROMEDIOS, inicio);
+        return resultado;
+    }
+    
+    public void procesarPromedios() {
+        procesarPromedios(consola);
+        consola.vaciar();
+    }
+    
+    public void procesarPromedios(Reporte reporte) {
+        long inicio = Metricas.inicio();
+        cacheReportes.escribir("promedios", DEPENDENCIAS_PROMEDIOS, reporte, this::generarPromedios);
+        Metricas.GLOBAL.registrar(Metricas.Operacion.PROCESAR_PROMEDIOS, inicio);
+    }
+    
+    private void generarPromedios(Reporte reporte) {
+        reporte.titulo("PROCESAMIENTO DE PROMEDIOS");
+        if (estudiantes.isEmpty()) {
+            reporte.mensaje("No hay estudiantes registrados para procesar promedios.");
+            return;
+        }
+        ResultadoPromedios resultado = calcularPromedios();
+        for (int i = 0; i < resultado.getCantidadEstudiantes(); i++) {
+            Estudiante estudiante = resultado.getEstudiante(i);
+            reporte.registro("Promedio")
+                   .campo("ID", estudiante.getId())
+                   .campo("Estudiante", estudiante.getNombre())
+                   .campoDecimal("Promedio", resultado.getPromedio(i));
+            if (!resultado.tieneCalificaciones(i)) {
+                reporte.campo("Error", estudiante.describirPromedioInvalido());
+            }
+            reporte.fin();
+        }
+        
+        reporte.registro("Promedio institucional")
+               .campoDecimal("Promedio", resultado.getPromedioInstitucional())
+               .campoDecimal("Mediana", resultado.getPercentil(50))
+               .campoDecimal("Percentil 90", resultado.getPercentil(90))
+               .campo("Sin calificaciones", resultado.getCantidadSinCalificaciones())
+               .fin();
+        for (int j = 0; j < resultado.getCantidadCursos(); j++) {
+            if (resultado.getEvaluadosCurso(j) > 0) {
+                reporte.registro("Promedio del curso")
+                       .campo("Curso", resultado.getCurso(j).getNombreCurso())
+                       .campoDecimal("Promedio", resultado.getPromedioCurso(j))
+                       .fin();
+            }
+        }
+    }
+    
+    // Exporta un listado a un archivo en el formato elegido
+    public void exportarReporte() {
+        System.out.println("\n=== EXPORTAR REPORTE ===");
+        System.out.println("1. Personas  2. Cursos  3. Pagos  4. Promedios  5. Métricas");
+        System.out.print("Seleccione el reporte: ");
+        String tipo = scanner.nextLine().trim();
+        System.out.print("Formato (TEXTO, CSV, JSON): ");
+        Reporte.Formato formato;
+        try {
+            formato = Reporte.Formato.valueOf(scanner.nextLine().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Formato inválido.");
+            return;
+        }
+        System.out.print("Archivo de destino: ");
+        String archivo = scanner.nextLine().trim();
+        
+        try (Writer destino = Files.newBufferedWriter(Paths.get(archivo), StandardCharsets.UTF_8)) {
+            Reporte reporte = new Reporte(destino, formato);
+            switch (tipo) {
+                case "1":
+                    mostrarTodasLasPersonas(reporte);
+                    break;
+                case "2":
+                    mostrarTodosLosCursos(reporte);
+                    break;
+                case "3":
+                    procesarPagos(reporte);
+                    break;
+                case "4":
+                    procesarPromedios(reporte);
+                    break;
+                case "5":
+                    Metricas.GLOBAL.instantanea().escribir(reporte);
+                    break;
+                default:
+                    System.out.println("Reporte inválido.");
+                    return;
+            }
+            reporte.vaciar();
+            System.out.println(reporte.hayError() ? "Error al escribir el reporte." : "Reporte exportado a " + archivo);
+        } catch (IOException e) {
+            System.out.println("Error al escribir el reporte: " + e.getMessage());
+        }
+    }
+    
+    public void mostrarMetricas() {
+        Metricas.GLOBAL.instantanea().escribir(consola);
+        cacheReportes.escribirEstadisticas(consola);
+        consola.vaciar();
+    }
+    
+    public CacheReportes getCacheReportes() {
+        return cacheReportes;
+    }
+    
+    // null si el sistema no usa el almacén columnar
+    public AlmacenColumnarCalificaciones getAlmacenColumnar() {
+        return almacenColumnar;
+    }
+    
+    // Métodos del menú interactivo
+    public void mostrarMenu() {
+        System.out.println("\n╔══════════════════════════════════════════════╗");
+        System.out.println("║        SISTEMA DE GESTIÓN DE CURSOS          ║");
+        System.out.println("╠══════════════════════════════════════════════╣");
+        System.out.println("║  1. Registrar Profesor Tiempo Completo       ║");
+        System.out.println("║  2. Registrar Profesor Por Horas             ║");
+        System.out.println("║  3. Registrar Estudiante                     ║");
+        System.out.println("║  4. Crear Curso                              ║");
+        System.out.println("║  5. Agregar Estudiante a Curso               ║");
+        System.out.println("║  6. Agregar Calificación a Estudiante        ║");
+        System.out.println("║  7. Mostrar Todas las Personas               ║");
+        System.out.println("║  8. Mostrar Todos los Cursos                 ║");
+        System.out.println("║  9. Procesar Pagos                           ║");
+        System.out.println("║ 10. Procesar Promedios                       ║");
+        System.out.println("║ 11. Buscar Persona por ID                    ║");
+        System.out.println("║ 12. Buscar Curso por Nombre                  ║");
+        System.out.println("║ 13. Exportar Reporte (Texto/CSV/JSON)        ║");
+        System.out.println("║ 14. Mostrar Métricas                         ║");
+        System.out.println("║ 15. Cursos de una Persona                    ║");
+        System.out.println("║  0. Salir                                    ║");
+        System.out.println("╚══════════════════════════════════════════════╝");
+        System.out.print("Seleccione una opción: ");
+    }
+    
+    public void registrarProfesorTiempoCompleto() {
+        System.out.println("\n=== REGISTRAR PROFESOR TIEMPO COMPLETO ===");
+        System.out.print("Nombre: ");
+        String nombre = scanner.nextLine();
+        System.out.print("ID: ");
+        String id = scanner.nextLine();
+        System.out.print("Salario mensual: $");
+        try {
+            double salario = Double.parseDouble(scanner.nextLine());
+            ProfesorTiempoCompleto profesor = new ProfesorTiempoCompleto(nombre, id, salario);
+            registrarPersona(profesor);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: Ingrese un salario válido.");
+        }
+    }
+    
+    public void registrarProfesorPorHoras() {
+        System.out.println("\n=== REGISTRAR PROFESOR POR HORAS ===");
+        System.out.print("Nombre: ");
+        String nombre = scanner.nextLine();
+        System.out.print("ID: ");
+        String id = scanner.nextLine();
+        System.out.print("Horas trabajadas: ");
+        try {
+            int horas = Integer.parseInt(scanner.nextLine());
+            System.out.print("Pago por hora: $");
+            double pagoPorHora = Double.parseDouble(scanner.nextLine());
+            ProfesorPorHoras profesor = new ProfesorPorHoras(nombre, id, horas, pagoPorHora);
+            registrarPersona(profesor);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: Ingrese valores numéricos válidos.");
+        }
+    }
+    
+    public void registrarEstudiante() {
         System.out.println("\n=== REGISTRAR ESTUDIANTE ===");
         System.out.print("Nombre: ");
         String nombre = scanner.nextLine();
@@ -396,237 +3887,3112 @@ class SistemaGestionCursos {
         registrarPersona(estudiante);
     }
     
-    public void crearCurso() {
-        System.out.println("\n=== CREAR CURSO ===");
-        if (getProfesores().isEmpty()) {
-            System.out.println("Error: Debe registrar al menos un profesor antes de crear un curso.");
-            return;
+    public void crearCurso() {
+        System.out.println("\n=== CREAR CURSO ===");
+        if (profesores.isEmpty()) {
+            System.out.println("Error: Debe registrar al menos un profesor antes de crear un curso.");
+            return;
+        }
+        
+        System.out.print("Nombre del curso: ");
+        String nombreCurso = scanner.nextLine();
+        
+        Persona profesor = seleccionarPaginado("Profesores disponibles",
+                (prefijo, cursor) -> paginaProfesores(prefijo, cursor, TAMANO_PAGINA_MENU),
+                persona -> persona.getNombre() + " (ID: " + persona.getId() + ")");
+        if (profesor != null) {
+            Curso curso = new Curso(nombreCurso, profesor);
+            registrarCurso(curso);
+        } else {
+            System.out.println("Selección inválida.");
+        }
+    }
+    
+    public void agregarEstudianteACurso() {
+        System.out.println("\n=== AGREGAR ESTUDIANTE A CURSO ===");
+        if (cursos.isEmpty()) {
+            System.out.println("Error: No hay cursos registrados.");
+            return;
+        }
+        if (estudiantes.isEmpty()) {
+            System.out.println("Error: No hay estudiantes registrados.");
+            return;
+        }
+        
+        Curso curso = seleccionarPaginado("Cursos disponibles",
+                (prefijo, cursor) -> paginaCursos(prefijo, cursor, TAMANO_PAGINA_MENU),
+                Curso::getNombreCurso);
+        if (curso == null) {
+            System.out.println("Selección de curso inválida.");
+            return;
+        }
+        Estudiante estudiante = seleccionarPaginado("Estudiantes disponibles",
+                (prefijo, cursor) -> paginaEstudiantes(prefijo, null, cursor, TAMANO_PAGINA_MENU),
+                persona -> persona.getNombre() + " (ID: " + persona.getId() + ")");
+        if (estudiante != null) {
+            curso.agregarEstudiante(estudiante);
+        } else {
+            System.out.println("Selección de estudiante inválida.");
+        }
+    }
+    
+    public void agregarCalificacionAEstudiante() {
+        System.out.println("\n=== AGREGAR CALIFICACIÓN A ESTUDIANTE ===");
+        if (estudiantes.isEmpty()) {
+            System.out.println("Error: No hay estudiantes registrados.");
+            return;
+        }
+        
+        Estudiante estudiante = seleccionarPaginado("Estudiantes disponibles",
+                (prefijo, cursor) -> paginaEstudiantes(prefijo, null, cursor, TAMANO_PAGINA_MENU),
+                persona -> persona.getNombre() + " (ID: " + persona.getId() + ")");
+        if (estudiante == null) {
+            System.out.println("Selección inválida.");
+            return;
+        }
+        System.out.print("Ingrese la calificación (0-10): ");
+        try {
+            double calificacion = Double.parseDouble(scanner.nextLine());
+            estudiante.agregarCalificacion(calificacion);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: Ingrese valores válidos.");
+        }
+    }
+    
+    // Muestra las opciones por páginas y devuelve la elegida; null si la selección es inválida
+    // Enter muestra la página siguiente y un texto no numérico filtra por el inicio del nombre
+    private <T> T seleccionarPaginado(String titulo, BiFunction<String, Integer, Pagina<T>> paginador,
+                                      Function<T, String> descripcion) {
+        String prefijo = "";
+        int cursor = 0;
+        while (true) {
+            Pagina<T> pagina = paginador.apply(prefijo, cursor);
+            List<T> elementos = pagina.getElementos();
+            System.out.println(titulo + (prefijo.isEmpty() ? "" : " (nombre comienza con \"" + prefijo + "\")") + ":");
+            if (elementos.isEmpty()) {
+                System.out.println("  (sin resultados)");
+            }
+            for (int i = 0; i < elementos.size(); i++) {
+                System.out.println((i + 1) + ". " + descripcion.apply(elementos.get(i)));
+            }
+            
+            System.out.print("Seleccione el número" + (pagina.hayMas() ? " (Enter para ver más, " : " (") + 
+                             "o escriba un nombre para filtrar): ");
+            String entrada = scanner.nextLine().trim();
+            if (entrada.isEmpty()) {
+                if (!pagina.hayMas()) {
+                    return null;
+                }
+                cursor = pagina.getSiguienteCursor();
+                continue;
+            }
+            try {
+                int seleccion = Integer.parseInt(entrada) - 1;
+                return seleccion >= 0 && seleccion < elementos.size() ? elementos.get(seleccion) : null;
+            } catch (NumberFormatException e) {
+                prefijo = entrada;
+                cursor = 0;
+            }
+        }
+    }
+    
+    // Listados del menú por páginas; los métodos con Reporte escriben el listado completo
+    public void mostrarPersonasPaginadas() {
+        System.out.println("\n=== LISTADO DE PERSONAS (Polimorfismo) ===");
+        if (personas.isEmpty()) {
+            System.out.println("No hay personas registradas.");
+            return;
+        }
+        int cursor = 0;
+        do {
+            Pagina<Persona> pagina = paginaPersonas(ConsultaPersonas.todas(), cursor, TAMANO_PAGINA_LISTADO);
+            for (Persona persona : pagina.getElementos()) {
+                persona.mostrarInformacion(consola);
+            }
+            consola.vaciar();
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor >= 0 && continuarListado());
+    }
+    
+    public void mostrarCursosPaginados() {
+        System.out.println("\n=== LISTADO DE CURSOS ===");
+        if (cursos.isEmpty()) {
+            System.out.println("No hay cursos registrados.");
+            return;
+        }
+        int cursor = 0;
+        do {
+            Pagina<Curso> pagina = paginaCursos("", cursor, TAMANO_PAGINA_LISTADO);
+            for (Curso curso : pagina.getElementos()) {
+                curso.mostrarInformacionCurso(consola);
+            }
+            consola.vaciar();
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor >= 0 && continuarListado());
+    }
+    
+    private boolean continuarListado() {
+        System.out.print("-- Enter para ver más, 0 para terminar: ");
+        return !scanner.nextLine().trim().equals("0");
+    }
+    
+    public void buscarPersonaPorId() {
+        System.out.println("\n=== BUSCAR PERSONA POR ID ===");
+        System.out.print("Ingrese el ID a buscar: ");
+        String id = scanner.nextLine();
+        
+        Persona persona = buscarPersonaPorId(id);
+        if (persona != null) {
+            System.out.println("Persona encontrada:");
+            persona.mostrarInformacion(consola);
+            consola.vaciar();
+            return;
+        }
+        System.out.println("No se encontró ninguna persona con el ID: " + id);
+    }
+    
+    public void mostrarCursosDePersona() {
+        System.out.println("\n=== CURSOS DE UNA PERSONA ===");
+        System.out.print("Ingrese el ID: ");
+        String id = scanner.nextLine();
+        
+        Persona persona = buscarPersonaPorId(id);
+        if (persona == null) {
+            System.out.println("No se encontró ninguna persona con el ID: " + id);
+            return;
+        }
+        mostrarCursosDePersona(persona, consola);
+        consola.vaciar();
+    }
+    
+    // Cursos inscritos de un estudiante o cursos impartidos de un profesor
+    public void mostrarCursosDePersona(Persona persona, Reporte reporte) {
+        boolean esEstudiante = persona instanceof Estudiante;
+        List<Curso> relacionados = esEstudiante ? getCursosDeEstudiante((Estudiante) persona) : getCursosDeProfesor(persona);
+        reporte.titulo((esEstudiante ? "CURSOS INSCRITOS DE " : "CURSOS IMPARTIDOS POR ") + persona.getNombre());
+        if (relacionados.isEmpty()) {
+            reporte.mensaje(esEstudiante ? "El estudiante no está inscrito en ningún curso." : "El profesor no imparte ningún curso.");
+            return;
+        }
+        for (Curso curso : relacionados) {
+            Persona profesor = curso.getProfesorAsignado();
+            reporte.registro("Curso")
+                   .campo("Curso", curso.getNombreCurso())
+                   .campo("Profesor", profesor != null ? profesor.getNombre() : "Sin asignar")
+                   .campo("Número de estudiantes", curso.getCantidadEstudiantes())
+                   .campoDecimal("Promedio del curso", curso.getPromedioCurso())
+                   .fin();
+        }
+    }
+    
+    public void buscarCursoPorNombre() {
+        System.out.println("\n=== BUSCAR CURSO POR NOMBRE ===");
+        System.out.print("Ingrese el nombre del curso a buscar: ");
+        String nombre = scanner.nextLine();
+        
+        List<Curso> encontrados = buscarCursoPorNombre(nombre);
+        if (!encontrados.isEmpty()) {
+            System.out.println("Cursos encontrados: " + encontrados.size());
+            for (Curso curso : encontrados) {
+                curso.mostrarInformacionCurso(consola);
+            }
+            consola.vaciar();
+            return;
+        }
+        System.out.println("No se encontró ningún curso que contenga: " + nombre);
+    }
+    
+    // Vistas de solo lectura sobre las particiones; reflejan los registros posteriores
+    // y sus iteradores recorren una instantánea consistente
+    public List<Persona> getProfesores() {
+        return profesores;
+    }
+    
+    public List<ProfesorTiempoCompleto> getProfesoresTiempoCompleto() {
+        return profesoresTiempoCompleto;
+    }
+    
+    public List<ProfesorPorHoras> getProfesoresPorHoras() {
+        return profesoresPorHoras;
+    }
+    
+    public List<Estudiante> getEstudiantes() {
+        return estudiantes;
+    }
+    
+    public void ejecutarMenu() {
+        int opcion;
+        
+        do {
+            mostrarMenu();
+            try {
+                opcion = Integer.parseInt(scanner.nextLine());
+                // Con --inicio-rapido solo la búsqueda por ID se responde antes de terminar la carga
+                if (opcion != 0 && opcion != 11 && cargaDiferida != null) {
+                    System.out.println("Terminando de cargar los datos...");
+                    esperarCargaDiferida();
+                }
+                // Con la carga fallida cualquier cambio se haría sobre datos incompletos
+                if (errorCarga != null) {
+                    System.out.println("Los datos no se cargaron por completo; el menú se cierra sin aceptar cambios.");
+                    return;
+                }
+                
+                switch (opcion) {
+                    case 1:
+                        registrarProfesorTiempoCompleto();
+                        break;
+                    case 2:
+                        registrarProfesorPorHoras();
+                        break;
+                    case 3:
+                        registrarEstudiante();
+                        break;
+                    case 4:
+                        crearCurso();
+                        break;
+                    case 5:
+                        agregarEstudianteACurso();
+                        break;
+                    case 6:
+                        agregarCalificacionAEstudiante();
+                        break;
+                    case 7:
+                        mostrarPersonasPaginadas();
+                        break;
+                    case 8:
+                        mostrarCursosPaginados();
+                        break;
+                    case 9:
+                        procesarPagos();
+                        break;
+                    case 10:
+                        procesarPromedios();
+                        break;
+                    case 11:
+                        buscarPersonaPorId();
+                        break;
+                    case 12:
+                        buscarCursoPorNombre();
+                        break;
+                    case 13:
+                        exportarReporte();
+                        break;
+                    case 14:
+                        mostrarMetricas();
+                        break;
+                    case 15:
+                        mostrarCursosDePersona();
+                        break;
+                    case 0:
+                        System.out.println("¡Gracias por usar el Sistema de Gestión de Cursos!");
+                        break;
+                    default:
+                        System.out.println("Opción inválida. Por favor, seleccione una opción válida.");
+                }
+                
+                if (opcion != 0) {
+                    System.out.println("\nPresione Enter para continuar...");
+                    scanner.nextLine();
+                }
+                
+            } catch (NumberFormatException e) {
+                opcion = -1;
+                System.out.println("Error: Ingrese un número válido.");
+                System.out.println("\nPresione Enter para continuar...");
+                scanner.nextLine();
+            }
+            
+        } while (opcion != 0);
+    }
+}
+
+// Diario de eventos del dominio, de solo anexar y dividido en segmentos
+// Cada segmento se llama diario-<primera secuencia>.log. Los registros se acumulan en un
+// buffer que Persistencia vacía periódicamente, para no frenar a quien modifica datos
+// Las personas y los cursos se nombran por su número de registro, que no cambia con el ID ni el nombre
+// Orden de candados: el de altas del sistema, el de la entidad (persona, curso o calificaciones) y
+// por último el del diario. Los avisos llegan con el candado de la entidad tomado; con el del diario
+// tomado nunca se pide otro, por eso los avisos que leen datos de pago toman antes el de la persona
+class DiarioEventos implements OyenteCambios, Closeable {
+    static final byte PERSONA = 1;
+    static final byte CURSO = 2;
+    static final byte INSCRIPCION = 3;
+    static final byte REMOCION = 4;
+    static final byte CALIFICACION = 5;
+    static final byte ID = 6;
+    static final byte NOMBRE = 7;
+    static final byte RENOMBRE = 8;
+    static final byte PROFESOR = 9;
+    static final byte PAGO = 10;
+    
+    static final byte TIPO_TIEMPO_COMPLETO = 1;
+    static final byte TIPO_POR_HORAS = 2;
+    static final byte TIPO_ESTUDIANTE = 3;
+    
+    private static final String PREFIJO = "diario-";
+    private static final String EXTENSION = ".log";
+    
+    private final Path directorio;
+    private FileOutputStream archivo;
+    private DataOutputStream salida;
+    // Última secuencia escrita
+    private long secuencia;
+    // Primer error de escritura; se informa en la siguiente llamada a vaciar()
+    private IOException error;
+    
+    DiarioEventos(Path directorio, long ultimaSecuencia) throws IOException {
+        this.directorio = directorio;
+        this.secuencia = ultimaSecuencia;
+        abrirSegmento();
+    }
+    
+    private void abrirSegmento() throws IOException {
+        archivo = new FileOutputStream(directorio.resolve(nombreSegmento(secuencia + 1)).toFile(), true);
+        salida = new DataOutputStream(new BufferedOutputStream(archivo, 1 << 16));
+    }
+    
+    static String nombreSegmento(long primeraSecuencia) {
+        return PREFIJO + String.format("%020d", primeraSecuencia) + EXTENSION;
+    }
+    
+    // Segmentos existentes en orden de secuencia
+    static List<Path> segmentos(Path directorio) throws IOException {
+        List<Path> encontrados = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                encontrados.add(archivo);
+            }
+        }
+        Collections.sort(encontrados);
+        return encontrados;
+    }
+    
+    static long primeraSecuencia(Path segmento) {
+        String nombre = segmento.getFileName().toString();
+        return Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length()));
+    }
+    
+    public synchronized long getSecuencia() {
+        return secuencia;
+    }
+    
+    public synchronized void vaciar() throws IOException {
+        if (error != null) {
+            IOException pendiente = error;
+            error = null;
+            throw pendiente;
+        }
+        salida.flush();
+    }
+    
+    // Cierra el segmento actual y abre uno nuevo; devuelve la última secuencia escrita
+    public synchronized long rotar() throws IOException {
+        cerrarSegmento();
+        abrirSegmento();
+        return secuencia;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        cerrarSegmento();
+    }
+    
+    private void cerrarSegmento() throws IOException {
+        salida.flush();
+        archivo.getFD().sync();
+        salida.close();
+    }
+    
+    private DataOutputStream iniciar(byte tipo) throws IOException {
+        salida.writeByte(tipo);
+        salida.writeLong(++secuencia);
+        return salida;
+    }
+    
+    @Override
+    public void personaRegistrada(Persona persona) {
+        escribirPersona(PERSONA, persona);
+    }
+    
+    @Override
+    public synchronized void idCambiado(Persona persona, String idAnterior) {
+        try {
+            DataOutputStream registro = iniciar(ID);
+            registro.writeInt(persona.numero);
+            escribirTexto(registro, persona.getId());
+        } catch (IOException e) {
+            fallo(e);
+        }
+    }
+    
+    @Override
+    public synchronized void nombreCambiado(Persona persona) {
+        try {
+            DataOutputStream registro = iniciar(NOMBRE);
+            registro.writeInt(persona.numero);
+            escribirTexto(registro, persona.getNombre());
+        } catch (IOException e) {
+            fallo(e);
+        }
+    }
+    
+    @Override
+    public synchronized void cursoRegistrado(Curso curso) {
+        try {
+            DataOutputStream registro = iniciar(CURSO);
+            registro.writeInt(curso.numero);
+            escribirTexto(registro, curso.getNombreCurso());
+            registro.writeInt(numeroProfesor(curso));
+        } catch (IOException e) {
+            fallo(e);
+        }
+    }
+    
+    @Override
+    public synchronized void cursoRenombrado(Curso curso) {
+        try {
+            DataOutputStream registro = iniciar(RENOMBRE);
+            registro.writeInt(curso.numero);
+            escribirTexto(registro, curso.getNombreCurso());
+        } catch (IOException e) {
+            fallo(e);
+        }
+    }
+    
+    @Override
+    public synchronized void profesorAsignado(Curso curso) {
+        try {
+            DataOutputStream registro = iniciar(PROFESOR);
+            registro.writeInt(curso.numero);
+            registro.writeInt(numeroProfesor(curso));
+        } catch (IOException e) {
+            fallo(e);
+        }
+    }
+    
+    // Se guarda la persona completa; al reproducirlo solo se toman los datos de pago
+    @Override
+    public void pagoModificado(Persona profesor) {
+        escribirPersona(PAGO, profesor);
+    }
+    
+    // El candado de la persona (ya tomado si el aviso viene de un setter) se pide antes que el del
+    // diario: así los datos de pago se leen juntos y en el mismo orden en que se modificaron
+    private void escribirPersona(byte tipo, Persona persona) {
+        synchronized (persona) {
+            synchronized (this) {
+                try {
+                    DataOutputStream registro = iniciar(tipo);
+                    registro.writeInt(persona.numero);
+                    escribirPersona(registro, persona, persona.getId());
+                } catch (IOException e) {
+                    fallo(e);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public synchronized void estudianteInscrito(Curso curso, Estudiante estudiante) {
+        escribirInscripcion(INSCRIPCION, curso, estudiante);
+    }
+    
+    @Override
+    public synchronized void estudianteRemovido(Curso curso, Estudiante estudiante) {
+        escribirInscripcion(REMOCION, curso, estudiante);
+    }
+    
+    private void escribirInscripcion(byte tipo, Curso curso, Estudiante estudiante) {
+        try {
+            DataOutputStream registro = iniciar(tipo);
+            registro.writeInt(curso.numero);
+            registro.writeInt(estudiante.numero);
+        } catch (IOException e) {
+            fallo(e);
+        }
+    }
+    
+    @Override
+    public synchronized void calificacionAgregada(Estudiante estudiante, int posicion, double calificacion) {
+        try {
+            DataOutputStream registro = iniciar(CALIFICACION);
+            registro.writeInt(estudiante.numero);
+            registro.writeInt(posicion);
+            registro.writeDouble(calificacion);
+        } catch (IOException e) {
+            fallo(e);
+        }
+    }
+    
+    private void fallo(IOException e) {
+        if (error == null) {
+            error = e;
+        }
+    }
+    
+    // -1 si el curso no tiene profesor
+    static int numeroProfesor(Curso curso) {
+        Persona profesor = curso.getProfesorAsignado();
+        return profesor == null ? -1 : profesor.numero;
+    }
+    
+    // Formato común del diario y la instantánea: tipo, nombre, ID y datos propios del tipo
+    // El ID se recibe aparte porque la instantánea escribe el que leyó en su corte
+    static void escribirPersona(DataOutputStream salida, Persona persona, String id) throws IOException {
+        if (persona instanceof ProfesorTiempoCompleto) {
+            salida.writeByte(TIPO_TIEMPO_COMPLETO);
+            escribirTexto(salida, persona.getNombre());
+            escribirTexto(salida, id);
+            salida.writeDouble(((ProfesorTiempoCompleto) persona).getSalarioMensual());
+        } else if (persona instanceof ProfesorPorHoras) {
+            ProfesorPorHoras profesor = (ProfesorPorHoras) persona;
+            int horas;
+            double pagoPorHora;
+            // Ambos valores de la misma actualización
+            synchronized (profesor) {
+                horas = profesor.getHorasTrabajadas();
+                pagoPorHora = profesor.getPagoPorHora();
+            }
+            salida.writeByte(TIPO_POR_HORAS);
+            escribirTexto(salida, persona.getNombre());
+            escribirTexto(salida, id);
+            salida.writeInt(horas);
+            salida.writeDouble(pagoPorHora);
+        } else {
+            salida.writeByte(TIPO_ESTUDIANTE);
+            escribirTexto(salida, persona.getNombre());
+            escribirTexto(salida, id);
+        }
+    }
+    
+    static Persona leerPersona(DataInputStream entrada) throws IOException {
+        byte tipo = entrada.readByte();
+        String nombre = leerTexto(entrada);
+        String id = leerTexto(entrada);
+        switch (tipo) {
+            case TIPO_TIEMPO_COMPLETO:
+                return new ProfesorTiempoCompleto(nombre, id, entrada.readDouble());
+            case TIPO_POR_HORAS:
+                return new ProfesorPorHoras(nombre, id, entrada.readInt(), entrada.readDouble());
+            case TIPO_ESTUDIANTE:
+                return new Estudiante(nombre, id);
+            default:
+                throw new IOException("Tipo de persona desconocido: " + tipo);
+        }
+    }
+    
+    static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+    
+    static String leerTexto(DataInputStream entrada) throws IOException {
+        byte[] bytes = new byte[entrada.readInt()];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+
+// Persistencia del sistema: instantánea binaria más el diario de eventos posteriores
+// La instantánea solo detiene las altas y los cambios de ID, mientras rota el diario y lee qué personas
+// y cursos hay y los IDs de las personas: eso queda exactamente en su secuencia. El resto (nombres,
+// pagos, calificaciones, inscripciones) se lee después y puede incluir eventos posteriores, que al
+// reproducirse no cambian nada: cada evento fija un valor o trae la posición de la calificación.
+class Persistencia implements Closeable {
+    static final String INSTANTANEA = "instantanea.bin";
+    // "GCS1": instantánea sin índice y con los cursos referidos a personas por ID, solo se lee
+    private static final int MAGICO = 0x47435331;
+    // "GCS2": igual que GCS1 más un índice de posiciones al final, solo se lee
+    private static final int MAGICO_INDEXADO_POR_ID = 0x47435332;
+    // "GCS3": igual que GCS2, pero los cursos nombran al profesor y a los inscritos por número de registro
+    static final int MAGICO_INDEXADO = 0x47435333;
+    private static final long INTERVALO_VACIADO_MS = 100;
+    
+    private final SistemaGestionCursos sistema;
+    private final Path directorio;
+    private final DiarioEventos diario;
+    private final long eventosPorInstantanea;
+    private final ScheduledExecutorService tareas;
+    private volatile long secuenciaInstantanea;
+    private final long eventosReproducidos;
+    private final long nanosCarga;
+    private boolean cerrada;
+    
+    private Persistencia(SistemaGestionCursos sistema, Path directorio, DiarioEventos diario,
+                         long eventosPorInstantanea, long secuenciaInstantanea,
+                         long eventosReproducidos, long nanosCarga) {
+        this.sistema = sistema;
+        this.directorio = directorio;
+        this.diario = diario;
+        this.eventosPorInstantanea = eventosPorInstantanea;
+        this.secuenciaInstantanea = secuenciaInstantanea;
+        this.eventosReproducidos = eventosReproducidos;
+        this.nanosCarga = nanosCarga;
+        this.tareas = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "persistencia");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+    
+    // Carga la última instantánea y el diario sobre un sistema vacío y empieza a registrar sus cambios
+    public static Persistencia abrir(SistemaGestionCursos sistema, Path directorio, long eventosPorInstantanea)
+            throws IOException {
+        long inicio = System.nanoTime();
+        Files.createDirectories(directorio);
+        long base = cargarInstantanea(sistema, directorio.resolve(INSTANTANEA));
+        return reproducirDiario(sistema, directorio, eventosPorInstantanea, base, inicio);
+    }
+    
+    // Como abrir, pero vuelve en cuanto la instantánea está mapeada; el resto sigue en segundo plano
+    public static CargaDiferida abrirDiferido(SistemaGestionCursos sistema, Path directorio, long eventosPorInstantanea)
+            throws IOException {
+        long inicio = System.nanoTime();
+        Files.createDirectories(directorio);
+        CargaDiferida carga = new CargaDiferida(sistema, directorio, eventosPorInstantanea, inicio);
+        carga.iniciar();
+        return carga;
+    }
+    
+    static Persistencia reproducirDiario(SistemaGestionCursos sistema, Path directorio,
+                                         long eventosPorInstantanea, long base, long inicio) throws IOException {
+        long ultima = base;
+        long reproducidos = 0;
+        for (Path segmento : DiarioEventos.segmentos(directorio)) {
+            long[] estado = reproducirSegmento(sistema, segmento, base);
+            ultima = Math.max(ultima, estado[0]);
+            reproducidos += estado[1];
+        }
+        
+        DiarioEventos diario = new DiarioEventos(directorio, ultima);
+        Persistencia persistencia = new Persistencia(sistema, directorio, diario, eventosPorInstantanea,
+                                                     base, reproducidos, System.nanoTime() - inicio);
+        sistema.agregarOyente(diario);
+        persistencia.tareas.scheduleWithFixedDelay(persistencia::mantenimiento,
+                INTERVALO_VACIADO_MS, INTERVALO_VACIADO_MS, TimeUnit.MILLISECONDS);
+        return persistencia;
+    }
+    
+    public long getEventosReproducidos() {
+        return eventosReproducidos;
+    }
+    
+    public long getMilisegundosCarga() {
+        return nanosCarga / 1_000_000;
+    }
+    
+    // Pasa al archivo los eventos acumulados sin esperar al vaciado periódico
+    public void vaciar() throws IOException {
+        diario.vaciar();
+    }
+    
+    private void mantenimiento() {
+        try {
+            vaciar();
+            if (diario.getSecuencia() - secuenciaInstantanea >= eventosPorInstantanea) {
+                guardarInstantanea();
+            }
+        } catch (IOException e) {
+            System.err.println("Error de persistencia: " + e.getMessage());
+        }
+    }
+    
+    // Escribe una instantánea completa y descarta los segmentos del diario que ya cubre
+    public synchronized void guardarInstantanea() throws IOException {
+        long base;
+        Persona[] personas;
+        String[] ids;
+        Curso[] cursos;
+        // Corte: ninguna alta ni cambio de ID queda a medias entre la rotación y esta lectura
+        synchronized (sistema.getCandadoAltas()) {
+            base = diario.rotar();
+            personas = sistema.getPersonas().toArray(new Persona[0]);
+            ids = new String[personas.length];
+            for (int p = 0; p < personas.length; p++) {
+                ids[p] = personas[p].getId();
+            }
+            cursos = sistema.getCursos().toArray(new Curso[0]);
+        }
+        Path temporal = directorio.resolve(INSTANTANEA + ".tmp");
+        try (FileOutputStream archivo = new FileOutputStream(temporal.toFile());
+             DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(archivo, 1 << 16))) {
+            salida.writeInt(MAGICO_INDEXADO);
+            salida.writeLong(base);
+            
+            int[] posicionesPersonas = new int[personas.length];
+            String[] clavesPersonas = new String[personas.length];
+            salida.writeInt(personas.length);
+            for (int p = 0; p < personas.length; p++) {
+                Persona persona = personas[p];
+                posicionesPersonas[p] = salida.size();
+                clavesPersonas[p] = Persona.claveId(ids[p]);
+                DiarioEventos.escribirPersona(salida, persona, ids[p]);
+                if (persona instanceof Estudiante) {
+                    List<Double> calificaciones = ((Estudiante) persona).getCalificaciones();
+                    salida.writeInt(calificaciones.size());
+                    for (int i = 0; i < calificaciones.size(); i++) {
+                        salida.writeDouble(calificaciones.get(i));
+                    }
+                }
+            }
+            
+            // Un profesor o inscrito registrado después del corte tiene un número fuera de la
+            // instantánea; al cargarla se omite y su alta e inscripción llegan con el diario
+            int[] posicionesCursos = new int[cursos.length];
+            String[] clavesCursos = new String[cursos.length];
+            salida.writeInt(cursos.length);
+            for (int c = 0; c < cursos.length; c++) {
+                Curso curso = cursos[c];
+                posicionesCursos[c] = salida.size();
+                clavesCursos[c] = IndiceCursos.normalizar(curso.getNombreCurso());
+                DiarioEventos.escribirTexto(salida, curso.getNombreCurso());
+                salida.writeInt(DiarioEventos.numeroProfesor(curso));
+                synchronized (curso) {
+                    Collection<Estudiante> inscritos = curso.getEstudiantes();
+                    salida.writeInt(inscritos.size());
+                    for (Estudiante estudiante : inscritos) {
+                        salida.writeInt(estudiante.numero);
+                    }
+                }
+            }
+            
+            // Índice al final; los últimos 4 bytes del archivo indican dónde empieza
+            int indice = salida.size();
+            escribirIndice(salida, posicionesPersonas, clavesPersonas);
+            escribirIndice(salida, posicionesCursos, clavesCursos);
+            salida.writeInt(indice);
+            salida.flush();
+            archivo.getFD().sync();
+        }
+        Files.move(temporal, directorio.resolve(INSTANTANEA),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        secuenciaInstantanea = base;
+        
+        for (Path segmento : DiarioEventos.segmentos(directorio)) {
+            if (DiarioEventos.primeraSecuencia(segmento) <= base) {
+                Files.deleteIfExists(segmento);
+            }
+        }
+    }
+    
+    // Posiciones de los registros y una tabla hash abierta (sondeo lineal) de clave -> ordinal
+    private static void escribirIndice(DataOutputStream salida, int[] posiciones, String[] claves) throws IOException {
+        salida.writeInt(posiciones.length);
+        for (int posicion : posiciones) {
+            salida.writeInt(posicion);
+        }
+        int capacidad = Integer.highestOneBit(Math.max(2, posiciones.length * 2 - 1)) << 1;
+        int[] tabla = new int[capacidad];
+        Arrays.fill(tabla, -1);
+        for (int i = 0; i < claves.length; i++) {
+            int ranura = ranura(claves[i], capacidad);
+            while (tabla[ranura] != -1) {
+                ranura = (ranura + 1) & (capacidad - 1);
+            }
+            tabla[ranura] = i;
+        }
+        salida.writeInt(capacidad);
+        for (int ordinal : tabla) {
+            salida.writeInt(ordinal);
+        }
+    }
+    
+    static int ranura(String clave, int capacidad) {
+        int hash = clave.hashCode();
+        return (hash ^ (hash >>> 16)) & (capacidad - 1);
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (cerrada) {
+            return;
+        }
+        cerrada = true;
+        tareas.shutdown();
+        try {
+            tareas.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sistema.removerOyente(diario);
+        try {
+            guardarInstantanea();
+        } finally {
+            diario.close();
+        }
+    }
+    
+    // Devuelve la secuencia de la instantánea, o 0 si no existe
+    private static long cargarInstantanea(SistemaGestionCursos sistema, Path archivo) throws IOException {
+        if (!Files.exists(archivo)) {
+            return 0;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("La instantánea es demasiado grande para mapearla: " + canal.size() + " bytes");
+            }
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            int magico = datos.getInt();
+            if (magico != MAGICO && magico != MAGICO_INDEXADO_POR_ID && magico != MAGICO_INDEXADO) {
+                throw new IOException("El archivo no es una instantánea válida: " + archivo);
+            }
+            boolean porNumero = magico == MAGICO_INDEXADO;
+            long base = datos.getLong();
+            
+            // El índice va después de los cursos y esta lectura secuencial no lo necesita
+            int cantidadPersonas = datos.getInt();
+            for (int i = 0; i < cantidadPersonas; i++) {
+                Persona persona = leerPersona(datos);
+                // Desde GCS3 el diario nombra a las personas por número: una alta rechazada correría
+                // el de todas las siguientes
+                if (!sistema.agregarPersona(persona) && porNumero) {
+                    throw new IOException("La instantánea repite el ID " + persona.getId() + ": " + archivo);
+                }
+                if (persona instanceof Estudiante) {
+                    Estudiante estudiante = (Estudiante) persona;
+                    int cantidad = datos.getInt();
+                    for (int j = 0; j < cantidad; j++) {
+                        estudiante.registrarCalificacion(datos.getDouble());
+                    }
+                }
+            }
+            
+            int cantidadCursos = datos.getInt();
+            for (int i = 0; i < cantidadCursos; i++) {
+                String nombre = leerTexto(datos);
+                Curso curso = new Curso(nombre, leerReferencia(sistema, datos, porNumero));
+                sistema.agregarCurso(curso);
+                int inscritos = datos.getInt();
+                for (int j = 0; j < inscritos; j++) {
+                    Persona estudiante = leerReferencia(sistema, datos, porNumero);
+                    if (estudiante instanceof Estudiante) {
+                        curso.inscribir((Estudiante) estudiante);
+                    }
+                }
+            }
+            return base;
+        }
+    }
+    
+    // Persona referida por un curso de la instantánea: por número desde GCS3, por ID antes
+    private static Persona leerReferencia(SistemaGestionCursos sistema, ByteBuffer datos, boolean porNumero) {
+        return porNumero ? sistema.getPersona(datos.getInt()) : sistema.buscarPersonaPorId(leerTexto(datos));
+    }
+    
+    static Persona leerPersona(ByteBuffer datos) throws IOException {
+        byte tipo = datos.get();
+        String nombre = leerTexto(datos);
+        String id = leerTexto(datos);
+        switch (tipo) {
+            case DiarioEventos.TIPO_TIEMPO_COMPLETO:
+                return new ProfesorTiempoCompleto(nombre, id, datos.getDouble());
+            case DiarioEventos.TIPO_POR_HORAS:
+                return new ProfesorPorHoras(nombre, id, datos.getInt(), datos.getDouble());
+            case DiarioEventos.TIPO_ESTUDIANTE:
+                return new Estudiante(nombre, id);
+            default:
+                throw new IOException("Tipo de persona desconocido: " + tipo);
+        }
+    }
+    
+    static String leerTexto(ByteBuffer datos) {
+        byte[] bytes = new byte[datos.getInt()];
+        datos.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    // Aplica los eventos con secuencia mayor a la base; devuelve {última secuencia, eventos aplicados}
+    // Un registro incompleto al final del segmento (cierre abrupto) se descarta
+    private static long[] reproducirSegmento(SistemaGestionCursos sistema, Path segmento, long base) throws IOException {
+        long ultima = 0;
+        long aplicados = 0;
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(segmento), 1 << 16))) {
+            while (true) {
+                byte tipo;
+                try {
+                    tipo = entrada.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    long secuencia = entrada.readLong();
+                    Runnable evento = leerEvento(sistema, tipo, entrada);
+                    ultima = secuencia;
+                    if (secuencia > base) {
+                        evento.run();
+                        aplicados++;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        }
+        return new long[] {ultima, aplicados};
+    }
+    
+    private static Runnable leerEvento(SistemaGestionCursos sistema, byte tipo, DataInputStream entrada) throws IOException {
+        switch (tipo) {
+            // Las altas y los cursos se reproducen en el mismo orden en que recibieron su número
+            case DiarioEventos.PERSONA: {
+                int numero = entrada.readInt();
+                Persona persona = DiarioEventos.leerPersona(entrada);
+                return () -> {
+                    if (sistema.getPersona(numero) == null) {
+                        sistema.agregarPersona(persona);
+                    }
+                };
+            }
+            case DiarioEventos.CURSO: {
+                int numero = entrada.readInt();
+                String nombre = DiarioEventos.leerTexto(entrada);
+                int profesor = entrada.readInt();
+                return () -> {
+                    if (sistema.getCurso(numero) == null) {
+                        sistema.agregarCurso(new Curso(nombre, sistema.getPersona(profesor)));
+                    }
+                };
+            }
+            case DiarioEventos.INSCRIPCION:
+            case DiarioEventos.REMOCION: {
+                int numero = entrada.readInt();
+                int inscrito = entrada.readInt();
+                return () -> {
+                    Curso curso = sistema.getCurso(numero);
+                    Persona estudiante = sistema.getPersona(inscrito);
+                    if (curso != null && estudiante instanceof Estudiante) {
+                        if (tipo == DiarioEventos.REMOCION) {
+                            curso.desinscribir((Estudiante) estudiante);
+                        } else if (!curso.inscribir((Estudiante) estudiante)) {
+                            // Ya inscrito por la instantánea, que leyó el curso después: se pasa al
+                            // final para que el orden de inscripción sea el de los eventos
+                            curso.desinscribir((Estudiante) estudiante);
+                            curso.inscribir((Estudiante) estudiante);
+                        }
+                    }
+                };
+            }
+            case DiarioEventos.CALIFICACION: {
+                int numero = entrada.readInt();
+                int posicion = entrada.readInt();
+                double calificacion = entrada.readDouble();
+                return () -> {
+                    Persona persona = sistema.getPersona(numero);
+                    // La posición evita duplicar calificaciones ya incluidas en la instantánea
+                    if (persona instanceof Estudiante
+                            && ((Estudiante) persona).getRegistroCalificaciones().getCantidad() <= posicion) {
+                        ((Estudiante) persona).registrarCalificacion(calificacion);
+                    }
+                };
+            }
+            case DiarioEventos.ID: {
+                int numero = entrada.readInt();
+                String nuevo = DiarioEventos.leerTexto(entrada);
+                return () -> {
+                    Persona persona = sistema.getPersona(numero);
+                    if (persona != null) {
+                        persona.setId(nuevo);
+                    }
+                };
+            }
+            case DiarioEventos.NOMBRE: {
+                int numero = entrada.readInt();
+                String nombre = DiarioEventos.leerTexto(entrada);
+                return () -> {
+                    Persona persona = sistema.getPersona(numero);
+                    if (persona != null) {
+                        persona.setNombre(nombre);
+                    }
+                };
+            }
+            case DiarioEventos.RENOMBRE: {
+                int numero = entrada.readInt();
+                String nombre = DiarioEventos.leerTexto(entrada);
+                return () -> {
+                    Curso curso = sistema.getCurso(numero);
+                    if (curso != null) {
+                        curso.setNombreCurso(nombre);
+                    }
+                };
+            }
+            case DiarioEventos.PROFESOR: {
+                int numero = entrada.readInt();
+                int profesor = entrada.readInt();
+                return () -> {
+                    Curso curso = sistema.getCurso(numero);
+                    if (curso != null) {
+                        curso.setProfesorAsignado(sistema.getPersona(profesor));
+                    }
+                };
+            }
+            case DiarioEventos.PAGO: {
+                int numero = entrada.readInt();
+                Persona datos = DiarioEventos.leerPersona(entrada);
+                return () -> {
+                    Persona persona = sistema.getPersona(numero);
+                    if (persona instanceof ProfesorTiempoCompleto && datos instanceof ProfesorTiempoCompleto) {
+                        ((ProfesorTiempoCompleto) persona).setSalarioMensual(((ProfesorTiempoCompleto) datos).getSalarioMensual());
+                    } else if (persona instanceof ProfesorPorHoras && datos instanceof ProfesorPorHoras) {
+                        ProfesorPorHoras profesor = (ProfesorPorHoras) persona;
+                        profesor.setHorasTrabajadas(((ProfesorPorHoras) datos).getHorasTrabajadas());
+                        profesor.setPagoPorHora(((ProfesorPorHoras) datos).getPagoPorHora());
+                    }
+                };
+            }
+            default:
+                throw new IOException("Tipo de evento desconocido: " + tipo);
+        }
+    }
+}
+
+// Carga de los datos persistidos en segundo plano (modo --inicio-rapido)
+// El constructor solo mapea la instantánea y lee su índice, así que el menú aparece enseguida.
+// Un hilo registra después todas las entidades y reproduce el diario. Mientras tanto, buscar una
+// persona por ID o un curso por nombre exacto decodifica solo ese registro del archivo mapeado;
+// la entidad se crea una sola vez y es la misma que el hilo registrará en el sistema.
+// Si el diario tiene eventos posteriores a la instantánea, esta ya no es el estado actual y
+// las búsquedas esperan a que termine la carga.
+// Si la carga falla, el sistema queda con datos incompletos: esperar() lanza el error y el menú
+// deja de aceptar cambios, para que nada se guarde encima de la instantánea.
+class CargaDiferida {
+    private final SistemaGestionCursos sistema;
+    private final Path directorio;
+    private final long eventosPorInstantanea;
+    private final long inicio;
+    private final long base;
+    // null si no hay instantánea o es de un formato anterior a GCS3 (se carga entera en el hilo)
+    private final ByteBuffer datos;
+    private final boolean consultasDirectas;
+    private int[] posicionesPersonas;
+    private int[] tablaPersonas;
+    private int[] posicionesCursos;
+    private int[] tablaCursos;
+    private Persona[] personas;
+    private Curso[] cursos;
+    private final Thread hilo;
+    private final CountDownLatch terminada;
+    private volatile Persistencia persistencia;
+    private volatile IOException error;
+    
+    CargaDiferida(SistemaGestionCursos sistema, Path directorio, long eventosPorInstantanea, long inicio)
+            throws IOException {
+        this.sistema = sistema;
+        this.directorio = directorio;
+        this.eventosPorInstantanea = eventosPorInstantanea;
+        this.inicio = inicio;
+        this.terminada = new CountDownLatch(1);
+        
+        long tamanoDiario = 0;
+        for (Path segmento : DiarioEventos.segmentos(directorio)) {
+            tamanoDiario += Files.size(segmento);
+        }
+        Path archivo = directorio.resolve(Persistencia.INSTANTANEA);
+        ByteBuffer mapeado = null;
+        long secuencia = 0;
+        if (Files.exists(archivo)) {
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                if (canal.size() > Integer.MAX_VALUE) {
+                    throw new IOException("La instantánea es demasiado grande para mapearla: " + canal.size() + " bytes");
+                }
+                mapeado = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            }
+            if (mapeado.getInt(0) == Persistencia.MAGICO_INDEXADO) {
+                secuencia = mapeado.getLong(4);
+                ByteBuffer indice = mapeado.duplicate();
+                indice.position(mapeado.getInt(mapeado.limit() - 4));
+                posicionesPersonas = leerEnteros(indice);
+                tablaPersonas = leerEnteros(indice);
+                posicionesCursos = leerEnteros(indice);
+                tablaCursos = leerEnteros(indice);
+                personas = new Persona[posicionesPersonas.length];
+                cursos = new Curso[posicionesCursos.length];
+            } else {
+                mapeado = null;
+            }
+        }
+        this.datos = mapeado;
+        this.base = secuencia;
+        this.consultasDirectas = mapeado != null && tamanoDiario == 0;
+        this.hilo = new Thread(this::cargar, "carga-diferida");
+        this.hilo.setDaemon(true);
+    }
+    
+    void iniciar() {
+        sistema.setCargaDiferida(this);
+        hilo.start();
+    }
+    
+    private static int[] leerEnteros(ByteBuffer indice) {
+        int[] enteros = new int[indice.getInt()];
+        indice.asIntBuffer().get(enteros);
+        indice.position(indice.position() + enteros.length * 4);
+        return enteros;
+    }
+    
+    private void cargar() {
+        try {
+            Persistencia abierta;
+            if (datos != null) {
+                for (int i = 0; i < personas.length; i++) {
+                    sistema.agregarPersona(persona(i));
+                }
+                for (int i = 0; i < cursos.length; i++) {
+                    sistema.agregarCurso(curso(i));
+                }
+                abierta = Persistencia.reproducirDiario(sistema, directorio, eventosPorInstantanea, base, inicio);
+            } else {
+                abierta = Persistencia.abrir(sistema, directorio, eventosPorInstantanea);
+            }
+            persistencia = abierta;
+            System.out.println("Carga en segundo plano terminada: " + sistema.getPersonas().size() + " personas y " +
+                               sistema.getCursos().size() + " cursos en " + abierta.getMilisegundosCarga() +
+                               " ms (" + abierta.getEventosReproducidos() + " eventos del diario)");
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e.getMessage(), e);
+        } finally {
+            // El error se publica antes de quitar la carga, para que nadie vea el sistema incompleto como cargado
+            if (error != null) {
+                System.out.println("Error al cargar los datos de " + directorio + ": " + error.getMessage());
+                sistema.setErrorCarga(error);
+            }
+            sistema.setCargaDiferida(null);
+            terminada.countDown();
+        }
+    }
+    
+    public boolean isTerminada() {
+        return terminada.getCount() == 0;
+    }
+    
+    // Espera a que termine la carga y devuelve la persistencia ya abierta; lanza el error si falló
+    public Persistencia esperar() throws IOException {
+        esperarFin();
+        if (error != null) {
+            throw error;
+        }
+        return persistencia;
+    }
+    
+    // Espera a que termine la carga, haya fallado o no
+    void esperarFin() {
+        boolean interrumpido = false;
+        while (true) {
+            try {
+                terminada.await();
+                break;
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Persona de la instantánea con ese ID, o null si no está (o si hubo que esperar a la carga)
+    Persona buscarPersona(String id) {
+        if (!consultable()) {
+            return null;
+        }
+        int ordinal = ordinalPersona(id);
+        return ordinal < 0 ? null : persona(ordinal);
+    }
+    
+    // Curso de la instantánea con ese nombre normalizado, o null (ver buscarPersona)
+    Curso buscarCurso(String nombre) {
+        if (!consultable()) {
+            return null;
+        }
+        String clave = IndiceCursos.normalizar(nombre);
+        for (int ranura = Persistencia.ranura(clave, tablaCursos.length); tablaCursos[ranura] != -1;
+             ranura = (ranura + 1) & (tablaCursos.length - 1)) {
+            int ordinal = tablaCursos[ranura];
+            if (IndiceCursos.normalizar(Persistencia.leerTexto(registro(posicionesCursos[ordinal]))).equals(clave)) {
+                return curso(ordinal);
+            }
+        }
+        return null;
+    }
+    
+    boolean esHiloDeCarga() {
+        return Thread.currentThread() == hilo;
+    }
+    
+    // El hilo de carga nunca consulta la instantánea: al reproducir el diario ya registró todo
+    private boolean consultable() {
+        if (esHiloDeCarga() || isTerminada()) {
+            return false;
+        }
+        if (!consultasDirectas) {
+            esperarFin();
+            return false;
+        }
+        return true;
+    }
+    
+    // Compara el ID guardado en cada ranura sin crear la persona; -1 si no está
+    private int ordinalPersona(String id) {
+        String clave = Persona.claveId(id);
+        for (int ranura = Persistencia.ranura(clave, tablaPersonas.length); tablaPersonas[ranura] != -1;
+             ranura = (ranura + 1) & (tablaPersonas.length - 1)) {
+            int ordinal = tablaPersonas[ranura];
+            ByteBuffer registro = registro(posicionesPersonas[ordinal]);
+            registro.get();
+            Persistencia.leerTexto(registro);
+            if (Persona.claveId(Persistencia.leerTexto(registro)).equals(clave)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+    
+    private ByteBuffer registro(int posicion) {
+        ByteBuffer registro = datos.duplicate();
+        registro.position(posicion);
+        return registro;
+    }
+    
+    private synchronized Persona persona(int ordinal) {
+        Persona persona = personas[ordinal];
+        if (persona == null) {
+            ByteBuffer registro = registro(posicionesPersonas[ordinal]);
+            try {
+                persona = Persistencia.leerPersona(registro);
+            } catch (IOException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            if (persona instanceof Estudiante) {
+                double[] calificaciones = new double[registro.getInt()];
+                registro.asDoubleBuffer().get(calificaciones);
+                ((Estudiante) persona).registrarCalificaciones(calificaciones, calificaciones.length);
+            }
+            personas[ordinal] = persona;
+        }
+        return persona;
+    }
+    
+    // Los cursos nombran a las personas por número de registro, que es su ordinal en la instantánea;
+    // null si no tiene profesor o la persona se registró después del corte
+    private Persona personaReferida(int numero) {
+        return numero >= 0 && numero < personas.length ? persona(numero) : null;
+    }
+    
+    private synchronized Curso curso(int ordinal) {
+        Curso curso = cursos[ordinal];
+        if (curso == null) {
+            ByteBuffer registro = registro(posicionesCursos[ordinal]);
+            String nombre = Persistencia.leerTexto(registro);
+            curso = new Curso(nombre, personaReferida(registro.getInt()));
+            int inscritos = registro.getInt();
+            for (int i = 0; i < inscritos; i++) {
+                Persona estudiante = personaReferida(registro.getInt());
+                if (estudiante instanceof Estudiante) {
+                    curso.inscribir((Estudiante) estudiante);
+                }
+            }
+            cursos[ordinal] = curso;
+        }
+        return curso;
+    }
+}
+
+// Servidor HTTP/JSON sobre el servidor incluido en el JDK (com.sun.net.httpserver)
+// Cada solicitud se atiende en un hilo virtual si la JVM los tiene (Java 21+); si no, en un
+// grupo fijo de hilos. Las respuestas son JSON por líneas (un objeto por registro) escritas con
+// Reporte, y los cuerpos de POST son objetos JSON con los mismos campos que la importación masiva.
+//
+//   POST /personas         {"tipo": "PROFESOR_TC" | "PROFESOR_HORAS" | "ESTUDIANTE", ...}
+//   POST /cursos           {"nombre": ..., "profesor": ...}
+//   POST /inscripciones    {"curso": ..., "estudiante": ...}
+//   POST /calificaciones   {"estudiante": ..., "calificacion": ...}
+//   GET  /personas         ?tipo=estudiante|profesor_tc|profesor_horas&prefijo=&curso=&cursor=&tamano=
+//   GET  /personas/{id}, /personas/{id}/cursos (inscritos o impartidos)
+//   GET  /personas/{id}/copia (la persona y sus calificaciones en el formato de la importación JSONL)
+//   GET  /cursos           ?nombre= (búsqueda por nombre) o ?prefijo=&cursor=&tamano=
+//   GET  /nomina, /nomina/resumen, /promedios, /metricas
+class ServidorHttp implements Closeable {
+    // Conexiones pendientes de aceptar; el sistema operativo puede limitarlo (somaxconn)
+    private static final int COLA_CONEXIONES = 4096;
+    private static final int TAMANO_MAXIMO_CUERPO = 1 << 16;
+    private static final int TAMANO_PAGINA_MAXIMO = 1000;
+    static final String TIPO_CONTENIDO = "application/x-ndjson; charset=utf-8";
+    // Sin TCP_NODELAY el último fragmento de cada respuesta espera el ACK retardado del cliente
+    // (unos 40 ms por solicitud). Es global para todos los HttpServer del proceso y se lee al crear
+    // el primero, así que la fija Paradigmas.main al arrancar (o -Dsun.net.httpserver.nodelay=...)
+    static final String PROPIEDAD_NODELAY = "sun.net.httpserver.nodelay";
+    // Con -Dparadigmas.hilosServidor=N se usa siempre un grupo fijo de N hilos
+    private static final int HILOS_CONFIGURADOS = Integer.getInteger("paradigmas.hilosServidor", 0);
+    
+    private final SistemaGestionCursos sistema;
+    private final ImportadorMasivo importador;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    private final boolean hilosVirtuales;
+    
+    private ServidorHttp(SistemaGestionCursos sistema, HttpServer servidor) {
+        this.sistema = sistema;
+        this.importador = new ImportadorMasivo(sistema);
+        this.servidor = servidor;
+        // Los hilos virtuales solo existen desde Java 21; en Java 17, la versión del proyecto, se usa el grupo fijo
+        ExecutorService virtuales = HILOS_CONFIGURADOS > 0 ? null : crearEjecutorVirtual();
+        this.hilosVirtuales = virtuales != null;
+        this.ejecutor = hilosVirtuales ? virtuales : Executors.newFixedThreadPool(HILOS_CONFIGURADOS > 0
+                ? HILOS_CONFIGURADOS : Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+    }
+    
+    // Puerto 0 elige un puerto libre
+    public static ServidorHttp iniciar(SistemaGestionCursos sistema, int puerto) throws IOException {
+        ServidorHttp servidorHttp = new ServidorHttp(sistema, crearServidor(puerto));
+        servidorHttp.servidor.createContext("/", servidorHttp::atender);
+        servidorHttp.servidor.setExecutor(servidorHttp.ejecutor);
+        servidorHttp.servidor.start();
+        return servidorHttp;
+    }
+    
+    static HttpServer crearServidor(int puerto) throws IOException {
+        return HttpServer.create(new InetSocketAddress(puerto), COLA_CONEXIONES);
+    }
+    
+    // Executors.newVirtualThreadPerTaskExecutor() por reflexión, para compilar también en Java 17
+    private static ExecutorService crearEjecutorVirtual() {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+    
+    public boolean usaHilosVirtuales() {
+        return hilosVirtuales;
+    }
+    
+    // Deja de aceptar conexiones y espera hasta un segundo a que terminen las solicitudes en curso
+    @Override
+    public void close() {
+        servidor.stop(1);
+        ejecutor.shutdown();
+    }
+    
+    private void atender(HttpExchange intercambio) throws IOException {
+        long inicio = Metricas.inicio();
+        try {
+            String ruta = intercambio.getRequestURI().getPath();
+            switch (intercambio.getRequestMethod()) {
+                case "POST":
+                    crear(ruta, leerCuerpo(intercambio));
+                    responder(intercambio, 201, reporte -> reporte.registro("Resultado").campo("Estado", "creado").fin());
+                    break;
+                case "GET":
+                    consultar(intercambio, ruta, parametros(intercambio.getRequestURI().getRawQuery()));
+                    break;
+                default:
+                    responderError(intercambio, 405, "Método no permitido: " + intercambio.getRequestMethod());
+            }
+        } catch (IllegalArgumentException e) {
+            responderError(intercambio, 400, e.getMessage());
+        } catch (NoSuchElementException e) {
+            responderError(intercambio, 404, e.getMessage());
+        } catch (RuntimeException e) {
+            responderFallo(intercambio, e);
+        } finally {
+            intercambio.close();
+            Metricas.GLOBAL.registrar(Metricas.Operacion.SOLICITUD_HTTP, inicio);
+        }
+    }
+    
+    // Los errores de datos llegan como IllegalArgumentException desde el importador
+    private void crear(String ruta, Map<String, String> campos) {
+        switch (ruta) {
+            case "/personas": {
+                // Un campo con valor null en el JSON queda en el mapa como null
+                String tipo = campos.get("tipo");
+                if (tipo == null || tipo.isEmpty()) {
+                    throw new IllegalArgumentException("Falta el campo 'tipo'");
+                }
+                tipo = tipo.toUpperCase(Locale.ROOT);
+                if (!tipo.equals("PROFESOR_TC") && !tipo.equals("PROFESOR_HORAS") && !tipo.equals("ESTUDIANTE")) {
+                    throw new IllegalArgumentException("Tipo de persona inválido: " + campos.get("tipo"));
+                }
+                break;
+            }
+            case "/cursos":
+                campos.put("tipo", "CURSO");
+                break;
+            case "/inscripciones":
+                campos.put("tipo", "INSCRIPCION");
+                break;
+            case "/calificaciones":
+                campos.put("tipo", "CALIFICACION");
+                break;
+            default:
+                throw new NoSuchElementException("Ruta no encontrada: " + ruta);
+        }
+        importador.aplicar(campos);
+    }
+    
+    private void consultar(HttpExchange intercambio, String ruta, Map<String, String> parametros) throws IOException {
+        int cursor = entero(parametros, "cursor", 0);
+        int tamano = Math.max(1, Math.min(entero(parametros, "tamano", SistemaGestionCursos.TAMANO_PAGINA_LISTADO),
+                                          TAMANO_PAGINA_MAXIMO));
+        if (ruta.startsWith("/personas/")) {
+            String id = ruta.substring("/personas/".length());
+            boolean cursos = id.endsWith("/cursos");
+            boolean copia = id.endsWith("/copia");
+            if (cursos || copia) {
+                id = id.substring(0, id.lastIndexOf('/'));
+            }
+            Persona persona = sistema.buscarPersonaPorId(id);
+            if (persona == null) {
+                throw new NoSuchElementException("No se encontró ninguna persona con el ID: " + id);
+            }
+            if (cursos) {
+                responder(intercambio, 200, reporte -> sistema.mostrarCursosDePersona(persona, reporte));
+            } else if (copia) {
+                responder(intercambio, 200, reporte -> exportar(persona, reporte));
+            } else {
+                responder(intercambio, 200, persona::mostrarInformacion);
+            }
+            return;
+        }
+        switch (ruta) {
+            case "/personas": {
+                Pagina<Persona> pagina = sistema.paginaPersonas(consultaPersonas(parametros), cursor, tamano);
+                responder(intercambio, 200, reporte -> {
+                    for (Persona persona : pagina.getElementos()) {
+                        persona.mostrarInformacion(reporte);
+                    }
+                    escribirCursor(reporte, pagina);
+                });
+                break;
+            }
+            case "/cursos": {
+                String nombre = parametros.get("nombre");
+                if (nombre != null) {
+                    List<Curso> encontrados = sistema.buscarCursoPorNombre(nombre);
+                    responder(intercambio, 200, reporte -> encontrados.forEach(curso -> curso.mostrarInformacionCurso(reporte)));
+                    break;
+                }
+                Pagina<Curso> pagina = sistema.paginaCursos(parametros.getOrDefault("prefijo", ""), cursor, tamano);
+                responder(intercambio, 200, reporte -> {
+                    for (Curso curso : pagina.getElementos()) {
+                        curso.mostrarInformacionCurso(reporte);
+                    }
+                    escribirCursor(reporte, pagina);
+                });
+                break;
+            }
+            case "/nomina":
+                responder(intercambio, 200, sistema::procesarPagos);
+                break;
+            case "/nomina/resumen":
+                responder(intercambio, 200, sistema::resumirNomina);
+                break;
+            case "/promedios":
+                responder(intercambio, 200, sistema::procesarPromedios);
+                break;
+            case "/metricas":
+                responder(intercambio, 200, reporte -> {
+                    Metricas.GLOBAL.instantanea().escribir(reporte);
+                    sistema.getCacheReportes().escribirEstadisticas(reporte);
+                });
+                break;
+            default:
+                throw new NoSuchElementException("Ruta no encontrada: " + ruta);
+        }
+    }
+    
+    private ConsultaPersonas consultaPersonas(Map<String, String> parametros) {
+        ConsultaPersonas consulta = ConsultaPersonas.todas().conPrefijo(parametros.getOrDefault("prefijo", ""));
+        String tipo = parametros.getOrDefault("tipo", "").toLowerCase(Locale.ROOT);
+        switch (tipo) {
+            case "":
+                break;
+            case "estudiante":
+                consulta.deTipo(Estudiante.class);
+                break;
+            case "profesor_tc":
+                consulta.deTipo(ProfesorTiempoCompleto.class);
+                break;
+            case "profesor_horas":
+                consulta.deTipo(ProfesorPorHoras.class);
+                break;
+            default:
+                throw new IllegalArgumentException("Tipo de persona inválido: " + tipo);
+        }
+        String nombreCurso = parametros.get("curso");
+        if (nombreCurso != null) {
+            Curso curso = sistema.buscarCursoExacto(nombreCurso);
+            if (curso == null) {
+                throw new NoSuchElementException("No se encontró ningún curso con el nombre: " + nombreCurso);
+            }
+            consulta.inscritasEn(curso);
+        }
+        return consulta;
+    }
+    
+    // Las calificaciones y montos van como texto con todos sus decimales, para copiarlos sin redondeo
+    private static void exportar(Persona persona, Reporte reporte) {
+        if (persona instanceof ProfesorTiempoCompleto) {
+            reporte.registro("PROFESOR_TC")
+                   .campo("Nombre", persona.getNombre())
+                   .campo("ID", persona.getId())
+                   .campo("Salario", Double.toString(((ProfesorTiempoCompleto) persona).getSalarioMensual()))
+                   .fin();
+        } else if (persona instanceof ProfesorPorHoras) {
+            ProfesorPorHoras profesor = (ProfesorPorHoras) persona;
+            reporte.registro("PROFESOR_HORAS")
+                   .campo("Nombre", persona.getNombre())
+                   .campo("ID", persona.getId())
+                   .campo("Horas", profesor.getHorasTrabajadas())
+                   .campo("Pago por hora", Double.toString(profesor.getPagoPorHora()))
+                   .fin();
+        } else if (persona instanceof Estudiante) {
+            reporte.registro("ESTUDIANTE")
+                   .campo("Nombre", persona.getNombre())
+                   .campo("ID", persona.getId())
+                   .fin();
+            RegistroCalificaciones calificaciones = ((Estudiante) persona).getRegistroCalificaciones();
+            for (int i = 0; i < calificaciones.getCantidad(); i++) {
+                reporte.registro("CALIFICACION")
+                       .campo("Estudiante", persona.getId())
+                       .campo("Calificacion", Double.toString(calificaciones.get(i)))
+                       .fin();
+            }
+        }
+    }
+    
+    private static void escribirCursor(Reporte reporte, Pagina<?> pagina) {
+        reporte.registro("Página")
+               .campo("Siguiente cursor", pagina.getSiguienteCursor())
+               .fin();
+    }
+    
+    // Respuesta por fragmentos: el reporte se escribe directamente en la conexión
+    static void responder(HttpExchange intercambio, int codigo, Consumer<Reporte> contenido) throws IOException {
+        intercambio.getResponseHeaders().set("Content-Type", TIPO_CONTENIDO);
+        intercambio.sendResponseHeaders(codigo, 0);
+        Reporte reporte = new Reporte(new OutputStreamWriter(intercambio.getResponseBody(), StandardCharsets.UTF_8),
+                                      Reporte.Formato.JSON);
+        contenido.accept(reporte);
+        reporte.vaciar();
+    }
+    
+    static void responderError(HttpExchange intercambio, int codigo, String mensaje) throws IOException {
+        responder(intercambio, codigo, reporte -> reporte.registro("Error").campo("Mensaje", mensaje).fin());
+    }
+    
+    // Un fallo inesperado es un error del servidor; si la respuesta ya empezó a enviarse, el código no
+    // se puede cambiar y solo queda cerrar la conexión
+    static void responderFallo(HttpExchange intercambio, RuntimeException fallo) throws IOException {
+        System.err.println("Error al atender " + intercambio.getRequestMethod() + " " + intercambio.getRequestURI() + ": " + fallo);
+        if (intercambio.getResponseCode() < 0) {
+            responderError(intercambio, 500, "Error interno: " + fallo);
+        }
+    }
+    
+    private static Map<String, String> leerCuerpo(HttpExchange intercambio) throws IOException {
+        byte[] cuerpo = intercambio.getRequestBody().readNBytes(TAMANO_MAXIMO_CUERPO + 1);
+        if (cuerpo.length > TAMANO_MAXIMO_CUERPO) {
+            throw new IllegalArgumentException("El cuerpo de la solicitud es demasiado grande.");
+        }
+        return ImportadorMasivo.leerJson(new String(cuerpo, StandardCharsets.UTF_8).trim());
+    }
+    
+    static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+    
+    private static int entero(Map<String, String> parametros, String nombre, int porDefecto) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            int numero = Integer.parseInt(valor);
+            if (numero < 0) {
+                throw new IllegalArgumentException("El parámetro " + nombre + " no puede ser negativo.");
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro " + nombre + " debe ser un número entero.");
+        }
+    }
+}
+
+// Enrutador del modo fragmentado: reparte las personas por hash del ID y los cursos por hash del
+// nombre normalizado entre varios procesos con ServidorHttp, y combina sus respuestas.
+// Un curso solo puede tener profesor e inscritos de su propio fragmento, así que antes de crear un
+// curso o inscribir a alguien de otro fragmento se copia la persona (con sus calificaciones) al
+// fragmento del curso; desde entonces cada calificación nueva se envía al de origen y a las copias.
+// Los listados combinados toman a cada persona solo de su fragmento de origen.
+//
+//   POST /personas, /cursos, /inscripciones, /calificaciones   (mismos cuerpos que ServidorHttp)
+//   GET  /personas/{id}, /personas/{id}/cursos, /cursos?nombre=, /nomina, /nomina/resumen, /promedios
+//   GET  /metricas (las del propio enrutador)
+class EnrutadorFragmentos implements Closeable {
+    // Tiempo durante el que se reintenta un fragmento que no responde (mientras se reinicia)
+    private static final long ESPERA_FRAGMENTO_MS = 15_000;
+    private static final int TAMANO_MAXIMO_CUERPO = 1 << 16;
+    private static final int CANDADOS = 256;
+    
+    private final List<URI> fragmentos;
+    private final HttpClient cliente;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    // Para las consultas a todos los fragmentos; aparte del ejecutor para no agotar sus hilos
+    private final ExecutorService consultas;
+    // Fragmentos con una copia de cada estudiante, por clave de ID (sin contar el de origen)
+    private final Map<String, Set<Integer>> copias;
+    // Ordenan las copias y calificaciones de un mismo estudiante, repartidos por hash del ID
+    private final Object[] candados;
+    
+    private EnrutadorFragmentos(List<URI> fragmentos, HttpServer servidor) {
+        this.fragmentos = new ArrayList<>(fragmentos);
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        this.servidor = servidor;
+        this.ejecutor = Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+        this.consultas = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea, "enrutador-consultas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.copias = new ConcurrentHashMap<>();
+        this.candados = new Object[CANDADOS];
+        for (int i = 0; i < CANDADOS; i++) {
+            candados[i] = new Object();
+        }
+    }
+    
+    // Antes de atender reconstruye qué estudiantes tienen copias, preguntando a cada fragmento
+    public static EnrutadorFragmentos iniciar(List<URI> fragmentos, int puerto) throws IOException {
+        if (fragmentos.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos un fragmento.");
+        }
+        EnrutadorFragmentos enrutador = new EnrutadorFragmentos(fragmentos, ServidorHttp.crearServidor(puerto));
+        enrutador.reconstruirCopias();
+        enrutador.servidor.createContext("/", enrutador::atender);
+        enrutador.servidor.setExecutor(enrutador.ejecutor);
+        enrutador.servidor.start();
+        return enrutador;
+    }
+    
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+    
+    public int getCantidadFragmentos() {
+        return fragmentos.size();
+    }
+    
+    @Override
+    public void close() {
+        servidor.stop(1);
+        ejecutor.shutdown();
+        consultas.shutdown();
+    }
+    
+    static int fragmentoDePersona(String id, int cantidad) {
+        return fragmento(Persona.claveId(id), cantidad);
+    }
+    
+    static int fragmentoDeCurso(String nombre, int cantidad) {
+        return fragmento(IndiceCursos.normalizar(nombre), cantidad);
+    }
+    
+    private static int fragmento(String clave, int cantidad) {
+        int hash = clave.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), cantidad);
+    }
+    
+    private void atender(HttpExchange intercambio) throws IOException {
+        long inicio = Metricas.inicio();
+        try {
+            String ruta = intercambio.getRequestURI().getPath();
+            switch (intercambio.getRequestMethod()) {
+                case "POST": {
+                    Respuesta respuesta = crear(ruta, leerCuerpo(intercambio));
+                    responder(intercambio, respuesta.codigo, respuesta.lineas);
+                    break;
+                }
+                case "GET":
+                    consultar(intercambio, ruta, ServidorHttp.parametros(intercambio.getRequestURI().getRawQuery()));
+                    break;
+                default:
+                    ServidorHttp.responderError(intercambio, 405, "Método no permitido: " + intercambio.getRequestMethod());
+            }
+        } catch (IllegalArgumentException e) {
+            ServidorHttp.responderError(intercambio, 400, e.getMessage());
+        } catch (NoSuchElementException e) {
+            ServidorHttp.responderError(intercambio, 404, e.getMessage());
+        } catch (IllegalStateException e) {
+            ServidorHttp.responderError(intercambio, 503, e.getMessage());
+        } catch (RuntimeException e) {
+            ServidorHttp.responderFallo(intercambio, e);
+        } finally {
+            intercambio.close();
+            Metricas.GLOBAL.registrar(Metricas.Operacion.SOLICITUD_HTTP, inicio);
+        }
+    }
+    
+    private Respuesta crear(String ruta, String cuerpo) {
+        Map<String, String> campos = ImportadorMasivo.leerJson(cuerpo);
+        int cantidad = fragmentos.size();
+        switch (ruta) {
+            case "/personas":
+                return enviar(fragmentoDePersona(requerido(campos, "id"), cantidad), ruta, cuerpo);
+            case "/cursos": {
+                int destino = fragmentoDeCurso(requerido(campos, "nombre"), cantidad);
+                asegurarCopia(requerido(campos, "profesor"), destino);
+                return enviar(destino, ruta, cuerpo);
+            }
+            case "/inscripciones": {
+                int destino = fragmentoDeCurso(requerido(campos, "curso"), cantidad);
+                asegurarCopia(requerido(campos, "estudiante"), destino);
+                return enviar(destino, ruta, cuerpo);
+            }
+            // Si falla una copia la calificación ya quedó en el origen; se informa como fragmento no disponible
+            case "/calificaciones": {
+                String id = requerido(campos, "estudiante");
+                synchronized (candado(id)) {
+                    Respuesta respuesta = enviar(fragmentoDePersona(id, cantidad), ruta, cuerpo);
+                    if (respuesta.codigo == 201) {
+                        for (int copia : copias.getOrDefault(Persona.claveId(id), Collections.emptySet())) {
+                            enviar(copia, ruta, cuerpo);
+                        }
+                    }
+                    return respuesta;
+                }
+            }
+            default:
+                throw new NoSuchElementException("Ruta no encontrada: " + ruta);
+        }
+    }
+    
+    // Copia la persona a otro fragmento la primera vez que un curso de ese fragmento la necesita
+    private void asegurarCopia(String id, int destino) {
+        int origen = fragmentoDePersona(id, fragmentos.size());
+        String clave = Persona.claveId(id);
+        if (origen == destino || copias.getOrDefault(clave, Collections.emptySet()).contains(destino)) {
+            return;
+        }
+        synchronized (candado(id)) {
+            if (copias.getOrDefault(clave, Collections.emptySet()).contains(destino)) {
+                return;
+            }
+            // Pudo copiarse antes de reiniciar el enrutador (los profesores no se reconstruyen)
+            if (obtener(destino, "/personas/" + codificar(id)).codigo == 200) {
+                copias.computeIfAbsent(clave, k -> ConcurrentHashMap.newKeySet()).add(destino);
+                return;
+            }
+            Respuesta copia = obtener(origen, "/personas/" + codificar(id) + "/copia");
+            if (copia.codigo == 404) {
+                throw new IllegalArgumentException("No existe una persona con el ID: " + id);
+            }
+            exigirExito(copia, origen);
+            for (String linea : copia.lineas) {
+                String tipo = ImportadorMasivo.leerJson(linea).get("tipo");
+                exigirExito(enviar(destino, tipo.equals("CALIFICACION") ? "/calificaciones" : "/personas", linea), destino);
+            }
+            copias.computeIfAbsent(clave, k -> ConcurrentHashMap.newKeySet()).add(destino);
+        }
+    }
+    
+    private Object candado(String id) {
+        return candados[Math.floorMod(Persona.claveId(id).hashCode(), CANDADOS)];
+    }
+    
+    // Los estudiantes que aparecen en un fragmento que no es su origen son copias
+    private void reconstruirCopias() {
+        List<Respuesta> respuestas = obtenerDeTodos("/promedios");
+        for (int i = 0; i < respuestas.size(); i++) {
+            for (String linea : respuestas.get(i).lineas) {
+                Map<String, String> campos = ImportadorMasivo.leerJson(linea);
+                if ("Promedio".equals(campos.get("tipo"))
+                        && fragmentoDePersona(campos.get("id"), fragmentos.size()) != i) {
+                    copias.computeIfAbsent(Persona.claveId(campos.get("id")), k -> ConcurrentHashMap.newKeySet()).add(i);
+                }
+            }
+        }
+    }
+    
+    private void consultar(HttpExchange intercambio, String ruta, Map<String, String> parametros) throws IOException {
+        if (ruta.startsWith("/personas/")) {
+            String id = ruta.substring("/personas/".length());
+            if (!id.endsWith("/cursos")) {
+                int origen = fragmentoDePersona(id.endsWith("/copia") ? id.substring(0, id.lastIndexOf('/')) : id,
+                                                fragmentos.size());
+                Respuesta respuesta = obtener(origen, intercambio.getRequestURI().getRawPath());
+                responder(intercambio, respuesta.codigo, respuesta.lineas);
+                return;
+            }
+            // Los cursos de la persona pueden estar en cualquier fragmento con una copia suya
+            id = id.substring(0, id.length() - "/cursos".length());
+            List<Respuesta> respuestas = obtenerDeTodos(intercambio.getRequestURI().getRawPath());
+            Respuesta origen = respuestas.get(fragmentoDePersona(id, fragmentos.size()));
+            if (origen.codigo != 200) {
+                responder(intercambio, origen.codigo, origen.lineas);
+                return;
+            }
+            List<String> lineas = new ArrayList<>();
+            for (Respuesta respuesta : respuestas) {
+                if (respuesta.codigo == 200) {
+                    lineas.addAll(respuesta.lineas);
+                }
+            }
+            responder(intercambio, 200, lineas);
+            return;
+        }
+        switch (ruta) {
+            case "/cursos": {
+                if (parametros.get("nombre") == null) {
+                    throw new IllegalArgumentException("En modo fragmentado los cursos solo se buscan por nombre (?nombre=).");
+                }
+                List<String> lineas = new ArrayList<>();
+                for (Respuesta respuesta : exigirExito(obtenerDeTodos("/cursos?" + intercambio.getRequestURI().getRawQuery()))) {
+                    lineas.addAll(respuesta.lineas);
+                }
+                responder(intercambio, 200, lineas);
+                break;
+            }
+            case "/nomina":
+                responder(intercambio, 200, combinarNomina(false));
+                break;
+            case "/nomina/resumen":
+                responder(intercambio, 200, combinarNomina(true));
+                break;
+            case "/promedios":
+                responder(intercambio, 200, combinarPromedios());
+                break;
+            case "/metricas":
+                ServidorHttp.responder(intercambio, 200, reporte -> Metricas.GLOBAL.instantanea().escribir(reporte));
+                break;
+            default:
+                throw new NoSuchElementException("Ruta no encontrada: " + ruta);
+        }
+    }
+    
+    // Pagos de los profesores en su fragmento de origen y el total recalculado sobre ellos
+    private List<String> combinarNomina(boolean soloResumen) {
+        List<Respuesta> respuestas = exigirExito(obtenerDeTodos("/nomina"));
+        List<String> lineas = new ArrayList<>();
+        double total = 0;
+        int profesores = 0;
+        int invalidos = 0;
+        for (int i = 0; i < respuestas.size(); i++) {
+            for (String linea : respuestas.get(i).lineas) {
+                Map<String, String> campos = ImportadorMasivo.leerJson(linea);
+                if (!"Pago".equals(campos.get("tipo")) || fragmentoDePersona(campos.get("id"), fragmentos.size()) != i) {
+                    continue;
+                }
+                profesores++;
+                if (campos.get("monto") == null) {
+                    invalidos++;
+                } else {
+                    total += Double.parseDouble(campos.get("monto"));
+                }
+                if (!soloResumen) {
+                    lineas.add(linea);
+                }
+            }
+        }
+        double totalNomina = total;
+        int cantidadProfesores = profesores;
+        int cantidadInvalidos = invalidos;
+        if (soloResumen) {
+            lineas.add(registro(reporte -> reporte.registro("Resumen de la nómina")
+                    .campoMoneda("Total", totalNomina)
+                    .campo("Profesores", cantidadProfesores)
+                    .campo("Pagos inválidos", cantidadInvalidos)
+                    .fin()));
+        } else {
+            lineas.add(registro(reporte -> reporte.registro("Total de la nómina")
+                    .campoMoneda("Monto", totalNomina)
+                    .campo("Pagos inválidos", cantidadInvalidos)
+                    .fin()));
+        }
+        return lineas;
+    }
+    
+    // Las estadísticas institucionales se recalculan con los promedios publicados (dos decimales)
+    private List<String> combinarPromedios() {
+        List<Respuesta> respuestas = exigirExito(obtenerDeTodos("/promedios"));
+        List<String> lineas = new ArrayList<>();
+        List<String> lineasCursos = new ArrayList<>();
+        double[] promedios = new double[16];
+        int cantidad = 0;
+        double suma = 0;
+        int sinCalificaciones = 0;
+        for (int i = 0; i < respuestas.size(); i++) {
+            for (String linea : respuestas.get(i).lineas) {
+                Map<String, String> campos = ImportadorMasivo.leerJson(linea);
+                String tipo = campos.get("tipo");
+                if ("Promedio del curso".equals(tipo)) {
+                    lineasCursos.add(linea);
+                } else if ("Promedio".equals(tipo) && fragmentoDePersona(campos.get("id"), fragmentos.size()) == i) {
+                    lineas.add(linea);
+                    if (campos.get("promedio") == null) {
+                        sinCalificaciones++;
+                    } else {
+                        if (cantidad == promedios.length) {
+                            promedios = Arrays.copyOf(promedios, cantidad * 2);
+                        }
+                        promedios[cantidad] = Double.parseDouble(campos.get("promedio"));
+                        suma += promedios[cantidad++];
+                    }
+                }
+            }
+        }
+        double[] ordenados = Arrays.copyOf(promedios, cantidad);
+        Arrays.parallelSort(ordenados);
+        double promedioInstitucional = cantidad == 0 ? Double.NaN : suma / cantidad;
+        int sinNota = sinCalificaciones;
+        lineas.add(registro(reporte -> reporte.registro("Promedio institucional")
+                .campoDecimal("Promedio", promedioInstitucional)
+                .campoDecimal("Mediana", percentil(ordenados, 50))
+                .campoDecimal("Percentil 90", percentil(ordenados, 90))
+                .campo("Sin calificaciones", sinNota)
+                .fin()));
+        lineas.addAll(lineasCursos);
+        return lineas;
+    }
+    
+    // Mismo criterio que ResultadoPromedios.getPercentil
+    private static double percentil(double[] ordenados, double percentil) {
+        if (ordenados.length == 0) {
+            return Double.NaN;
+        }
+        int rango = (int) Math.ceil(percentil / 100.0 * ordenados.length);
+        return ordenados[Math.max(0, Math.min(rango, ordenados.length) - 1)];
+    }
+    
+    private static String registro(Consumer<Reporte> contenido) {
+        StringWriter texto = new StringWriter();
+        Reporte reporte = new Reporte(texto, Reporte.Formato.JSON);
+        contenido.accept(reporte);
+        reporte.vaciar();
+        return texto.toString().trim();
+    }
+    
+    private static final class Respuesta {
+        final int codigo;
+        final List<String> lineas;
+        
+        Respuesta(int codigo, List<String> lineas) {
+            this.codigo = codigo;
+            this.lineas = lineas;
+        }
+    }
+    
+    private Respuesta enviar(int fragmento, String ruta, String cuerpo) {
+        return solicitar(fragmento, HttpRequest.newBuilder(fragmentos.get(fragmento).resolve(ruta))
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo, StandardCharsets.UTF_8)));
+    }
+    
+    private Respuesta obtener(int fragmento, String rutaYConsulta) {
+        return solicitar(fragmento, HttpRequest.newBuilder(fragmentos.get(fragmento).resolve(rutaYConsulta)).GET());
+    }
+    
+    private List<Respuesta> obtenerDeTodos(String rutaYConsulta) {
+        List<Future<Respuesta>> pendientes = new ArrayList<>();
+        for (int i = 0; i < fragmentos.size(); i++) {
+            int fragmento = i;
+            pendientes.add(consultas.submit(() -> obtener(fragmento, rutaYConsulta)));
+        }
+        List<Respuesta> respuestas = new ArrayList<>();
+        for (Future<Respuesta> pendiente : pendientes) {
+            try {
+                respuestas.add(pendiente.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Consulta interrumpida.");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause().getMessage());
+            }
+        }
+        return respuestas;
+    }
+    
+    // Un GET no cambia nada, así que se repite ante cualquier fallo de E/S (también si el fragmento
+    // cae a mitad de la respuesta). Un POST solo se repite si el fragmento rechazó la conexión: en
+    // otro caso pudo haberse aplicado y repetirlo lo duplicaría.
+    private Respuesta solicitar(int fragmento, HttpRequest.Builder solicitud) {
+        HttpRequest peticion = solicitud.timeout(Duration.ofSeconds(30)).build();
+        boolean idempotente = "GET".equals(peticion.method());
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_FRAGMENTO_MS);
+        while (true) {
+            IOException fallo;
+            try {
+                HttpResponse<Stream<String>> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofLines());
+                List<String> lineas = new ArrayList<>();
+                respuesta.body().filter(linea -> !linea.isEmpty()).forEach(lineas::add);
+                return new Respuesta(respuesta.statusCode(), lineas);
+            } catch (UncheckedIOException e) {
+                // Fallo al leer el cuerpo, que llega por el Stream de líneas
+                fallo = e.getCause();
+            } catch (IOException e) {
+                fallo = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Solicitud interrumpida.");
+            }
+            if (!idempotente && !(fallo instanceof ConnectException)) {
+                throw new IllegalStateException("Error al comunicarse con el fragmento " + fragmento + ": " + fallo.getMessage());
+            }
+            if (System.nanoTime() > limite) {
+                throw new IllegalStateException("El fragmento " + fragmento + " no está disponible.");
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Solicitud interrumpida.");
+            }
+        }
+    }
+    
+    private static void exigirExito(Respuesta respuesta, int fragmento) {
+        if (respuesta.codigo >= 300) {
+            String mensaje = respuesta.lineas.isEmpty() ? "" : ImportadorMasivo.leerJson(respuesta.lineas.get(0)).get("mensaje");
+            throw new IllegalStateException("El fragmento " + fragmento + " respondió " + respuesta.codigo +
+                                            (mensaje != null ? ": " + mensaje : ""));
+        }
+    }
+    
+    private static List<Respuesta> exigirExito(List<Respuesta> respuestas) {
+        for (int i = 0; i < respuestas.size(); i++) {
+            exigirExito(respuestas.get(i), i);
+        }
+        return respuestas;
+    }
+    
+    private static String requerido(Map<String, String> campos, String nombre) {
+        String valor = campos.get(nombre);
+        if (valor == null || valor.isEmpty()) {
+            throw new IllegalArgumentException("Falta el campo '" + nombre + "'");
+        }
+        return valor;
+    }
+    
+    private static String codificar(String texto) {
+        return URLEncoder.encode(texto, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+    
+    private static String leerCuerpo(HttpExchange intercambio) throws IOException {
+        byte[] cuerpo = intercambio.getRequestBody().readNBytes(TAMANO_MAXIMO_CUERPO + 1);
+        if (cuerpo.length > TAMANO_MAXIMO_CUERPO) {
+            throw new IllegalArgumentException("El cuerpo de la solicitud es demasiado grande.");
+        }
+        return new String(cuerpo, StandardCharsets.UTF_8).trim();
+    }
+    
+    private static void responder(HttpExchange intercambio, int codigo, List<String> lineas) throws IOException {
+        intercambio.getResponseHeaders().set("Content-Type", ServidorHttp.TIPO_CONTENIDO);
+        intercambio.sendResponseHeaders(codigo, 0);
+        Writer salida = new BufferedWriter(new OutputStreamWriter(intercambio.getResponseBody(), StandardCharsets.UTF_8));
+        for (String linea : lineas) {
+            salida.write(linea);
+            salida.write('\n');
+        }
+        salida.flush();
+    }
+}
+
+// Lanza N procesos "Paradigmas --servidor" en puertos consecutivos de loopback, con un directorio de
+// datos por fragmento, y reinicia los que terminan sin que se haya pedido: así se prueba que un
+// fragmento caído vuelve con su instantánea y su diario mientras el enrutador reintenta.
+// Cada proceso escribe su salida en fragmento-<i>.log dentro del directorio de datos.
+class ArnesFragmentos implements Closeable {
+    private static final long ESPERA_INICIO_MS = 60_000;
+    // Un proceso que termina antes de esto no se reinicia, para no entrar en un ciclo de fallos
+    private static final long VIDA_MINIMA_MS = 5_000;
+    
+    private final int puertoBase;
+    private final Path directorio;
+    private final List<String> opcionesJvm;
+    private final Process[] procesos;
+    private final LongAdder reinicios;
+    private volatile boolean cerrando;
+    
+    private ArnesFragmentos(int cantidad, int puertoBase, Path directorio, List<String> opcionesJvm) {
+        this.puertoBase = puertoBase;
+        this.directorio = directorio;
+        this.opcionesJvm = opcionesJvm;
+        this.procesos = new Process[cantidad];
+        this.reinicios = new LongAdder();
+    }
+    
+    // Los fragmentos usan los puertos puertoBase..puertoBase+cantidad-1
+    public static ArnesFragmentos iniciar(int cantidad, int puertoBase, Path directorio, List<String> opcionesJvm)
+            throws IOException {
+        Files.createDirectories(directorio);
+        ArnesFragmentos arnes = new ArnesFragmentos(cantidad, puertoBase, directorio, opcionesJvm);
+        try {
+            for (int i = 0; i < cantidad; i++) {
+                arnes.lanzar(i);
+            }
+            for (int i = 0; i < cantidad; i++) {
+                arnes.esperarListo(i);
+            }
+        } catch (IOException e) {
+            arnes.close();
+            throw e;
+        }
+        return arnes;
+    }
+    
+    public List<URI> getDirecciones() {
+        List<URI> direcciones = new ArrayList<>();
+        for (int i = 0; i < procesos.length; i++) {
+            direcciones.add(URI.create("http://127.0.0.1:" + (puertoBase + i)));
+        }
+        return direcciones;
+    }
+    
+    public long getReinicios() {
+        return reinicios.sum();
+    }
+    
+    // Simula una caída (SIGKILL); el fragmento se reinicia solo y recupera lo que llegó a su diario
+    public void detenerAbruptamente(int fragmento) {
+        procesos[fragmento].destroyForcibly();
+    }
+    
+    private synchronized void lanzar(int fragmento) throws IOException {
+        if (cerrando) {
+            return;
+        }
+        Path datos = directorio.resolve("fragmento-" + fragmento);
+        List<String> comando = new ArrayList<>();
+        comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(opcionesJvm);
+        comando.add("-cp");
+        comando.add(System.getProperty("java.class.path"));
+        comando.add(Paradigmas.class.getName());
+        comando.add("--servidor");
+        comando.add(Integer.toString(puertoBase + fragmento));
+        comando.add("--datos");
+        comando.add(datos.toString());
+        comando.add("--sin-menu");
+        Process proceso = new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(directorio.resolve("fragmento-" + fragmento + ".log").toFile()))
+                .start();
+        procesos[fragmento] = proceso;
+        long lanzado = System.nanoTime();
+        proceso.onExit().thenRun(() -> {
+            if (cerrando) {
+                return;
+            }
+            if (System.nanoTime() - lanzado < TimeUnit.MILLISECONDS.toNanos(VIDA_MINIMA_MS)) {
+                System.out.println("El fragmento " + fragmento + " terminó al iniciar; ver fragmento-" + fragmento + ".log");
+            } else {
+                try {
+                    reinicios.increment();
+                    lanzar(fragmento);
+                } catch (IOException e) {
+                    System.out.println("No se pudo reiniciar el fragmento " + fragmento + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+    
+    // Listo cuando su puerto acepta conexiones (el servidor se abre después de cargar los datos)
+    private void esperarListo(int fragmento) throws IOException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_INICIO_MS);
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", puertoBase + fragmento), 500);
+                return;
+            } catch (IOException e) {
+                if (System.nanoTime() > limite) {
+                    throw new IOException("El fragmento " + fragmento + " no inició; ver fragmento-" + fragmento + ".log");
+                }
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Espera interrumpida.");
+            }
+        }
+    }
+    
+    // Espera a que el fragmento vuelva a aceptar conexiones (después de un reinicio)
+    public void esperarDisponible(int fragmento) throws IOException {
+        esperarListo(fragmento);
+    }
+    
+    // SIGTERM: cada fragmento guarda su instantánea en el gancho de cierre antes de terminar
+    @Override
+    public void close() {
+        cerrando = true;
+        for (Process proceso : procesos) {
+            if (proceso != null) {
+                proceso.destroy();
+            }
+        }
+        for (Process proceso : procesos) {
+            if (proceso == null) {
+                continue;
+            }
+            try {
+                if (!proceso.waitFor(30, TimeUnit.SECONDS)) {
+                    proceso.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                proceso.destroyForcibly();
+            }
+        }
+    }
+    
+    // Prueba de escala y recuperación sobre loopback: carga datos por el enrutador desde varios hilos,
+    // compara los totales combinados con los esperados y tumba el fragmento 0 para comprobar que
+    // vuelve con los mismos datos. Conviene repetirla con 1, 2, 4... fragmentos para ver la escala.
+    static void probar(int cantidad, int puerto, Path directorio, int estudiantes, int hilos) throws IOException {
+        int profesores = Math.max(1, estudiantes / 100);
+        int cursos = Math.max(1, estudiantes / 50);
+        try (ArnesFragmentos arnes = iniciar(cantidad, puerto + 1, directorio, List.of());
+             EnrutadorFragmentos enrutador = EnrutadorFragmentos.iniciar(arnes.getDirecciones(), puerto)) {
+            HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            URI base = URI.create("http://127.0.0.1:" + enrutador.getPuerto());
+            System.out.println("Fragmentos: " + cantidad + ", estudiantes: " + estudiantes + ", profesores: " + 
+                               profesores + ", cursos: " + cursos + ", hilos: " + hilos);
+            
+            fase(cliente, base, "Personas", profesores + estudiantes, hilos, i -> i < profesores
+                    ? "/personas {\"tipo\":\"PROFESOR_TC\",\"nombre\":\"Profesor " + i + "\",\"id\":\"P" + i + "\",\"salario\":\"" + (1000 + i) + "\"}"
+                    : "/personas {\"tipo\":\"ESTUDIANTE\",\"nombre\":\"Estudiante " + (i - profesores) + "\",\"id\":\"E" + (i - profesores) + "\"}");
+            fase(cliente, base, "Cursos", cursos, hilos, i -> 
+                    "/cursos {\"nombre\":\"Curso " + i + "\",\"profesor\":\"P" + (i % profesores) + "\"}");
+            // Cada estudiante en dos cursos distintos (si hay más de uno)
+            fase(cliente, base, "Inscripciones", estudiantes * 2, hilos, i -> 
+                    "/inscripciones {\"curso\":\"Curso " + i % cursos + "\",\"estudiante\":\"E" + i / 2 + "\"}");
+            fase(cliente, base, "Calificaciones", estudiantes * 3, hilos, i -> 
+                    "/calificaciones {\"estudiante\":\"E" + i % estudiantes + "\",\"calificacion\":\"" + i % 11 + "\"}");
+            
+            double totalEsperado = profesores * 1000.0 + (double) profesores * (profesores - 1) / 2;
+            String antes = consultar(cliente, base, "/nomina/resumen");
+            // Los promedios dependen de las inscripciones y calificaciones, que la nómina no muestra
+            String promediosAntes = consultar(cliente, base, "/promedios");
+            System.out.println("Resumen combinado: " + antes + " (total esperado " + 
+                               String.format(Locale.ROOT, "%.2f", totalEsperado) + ")");
+            
+            try {
+                // El diario de cada fragmento se vacía cada 100 ms; se deja pasar un ciclo antes de la caída
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            arnes.detenerAbruptamente(0);
+            long inicio = System.nanoTime();
+            String despues = consultar(cliente, base, "/nomina/resumen");
+            System.out.println("Fragmento 0 detenido con SIGKILL; el enrutador respondió tras " + 
+                               (System.nanoTime() - inicio) / 1_000_000 + " ms (" + arnes.getReinicios() + " reinicio)");
+            System.out.println("Resumen después de la recuperación: " + despues + 
+                               (despues.equals(antes) ? " (igual)" : " (DIFERENTE)"));
+            String promediosDespues = consultar(cliente, base, "/promedios");
+            System.out.println("Promedios después de la recuperación (" + promediosDespues.lines().count() + " líneas): " +
+                               (promediosDespues.equals(promediosAntes) ? "iguales" : "DIFERENTES"));
+        }
+    }
+    
+    // Envía n solicitudes "ruta cuerpo" repartidas entre los hilos y muestra rendimiento y latencia
+    private static void fase(HttpClient cliente, URI base, String nombre, int n, int hilos,
+                             IntFunction<String> solicitud) {
+        HistogramaLatencia latencias = new HistogramaLatencia();
+        LongAdder errores = new LongAdder();
+        AtomicInteger siguiente = new AtomicInteger();
+        ExecutorService grupo = Executors.newFixedThreadPool(hilos);
+        long inicio = System.nanoTime();
+        for (int h = 0; h < hilos; h++) {
+            grupo.execute(() -> {
+                for (int i = siguiente.getAndIncrement(); i < n; i = siguiente.getAndIncrement()) {
+                    String texto = solicitud.apply(i);
+                    int espacio = texto.indexOf(' ');
+                    HttpRequest peticion = HttpRequest.newBuilder(base.resolve(texto.substring(0, espacio)))
+                            .POST(HttpRequest.BodyPublishers.ofString(texto.substring(espacio + 1), StandardCharsets.UTF_8))
+                            .build();
+                    long enviado = System.nanoTime();
+                    try {
+                        if (cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode() != 201) {
+                            errores.increment();
+                        }
+                    } catch (IOException e) {
+                        errores.increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencias.registrar(System.nanoTime() - enviado);
+                }
+            });
+        }
+        grupo.shutdown();
+        try {
+            grupo.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long nanos = Math.max(1, System.nanoTime() - inicio);
+        HistogramaLatencia.Instantanea instantanea = latencias.instantanea();
+        System.out.println(String.format(Locale.ROOT, "%-15s %8d solicitudes en %6d ms: %9.0f sol/s, p50 %s, p99 %s, errores %d",
+                nombre, n, nanos / 1_000_000, n * 1e9 / nanos, milisegundos(instantanea.getPercentilNanos(50)),
+                milisegundos(instantanea.getPercentilNanos(99)), errores.sum()));
+    }
+    
+    private static String milisegundos(long nanos) {
+        return String.format(Locale.ROOT, "%.2f ms", nanos / 1e6);
+    }
+    
+    private static String consultar(HttpClient cliente, URI base, String ruta) throws IOException {
+        try {
+            return cliente.send(HttpRequest.newBuilder(base.resolve(ruta)).GET().build(),
+                                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).body().trim();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Consulta interrumpida.");
         }
+    }
+}
+
+// Generador de carga sintética para dimensionar el hardware y para pruebas de resistencia largas.
+// Simula periodos académicos sobre la API del dominio desde varios hilos a la vez: altas masivas al
+// inicio, la avalancha de inscripciones, la captura de calificaciones al cierre y corridas de nómina
+// durante todo el periodo. Al terminar un periodo empieza otro sobre la misma población.
+// Los datos y la elección de operaciones de cada hilo salen de la semilla; el intercalado entre hilos
+// y el instante en que cambia la fase dependen del reloj.
+// La población está acotada (estudiantes, cursos por estudiante, calificaciones por estudiante): al
+// llegar al tope la operación se vuelve una consulta, de modo que en una prueba larga el heap debe
+// estabilizarse. Si el heap que queda tras cada GC sigue creciendo, hay una fuga.
+class GeneradorCarga {
+    enum Operacion { ALTA_ESTUDIANTE, ALTA_PROFESOR, ALTA_CURSO, INSCRIPCION, CALIFICACION, CAMBIO_PAGO, NOMINA, CONSULTA }
+    
+    // Fracción del periodo que dura cada fase y peso por mil de cada operación, en el orden de Operacion
+    enum Fase {
+        ALTAS(0.25, 600, 15, 40, 200, 50, 5, 1, 89),
+        INSCRIPCIONES(0.35, 80, 0, 10, 700, 50, 5, 1, 154),
+        CALIFICACIONES(0.40, 20, 0, 0, 80, 700, 5, 1, 194);
         
-        System.out.print("Nombre del curso: ");
-        String nombreCurso = scanner.nextLine();
+        private final double fraccion;
+        private final int[] acumulados;
         
-        System.out.println("Profesores disponibles:");
-        List<Persona> profesores = getProfesores();
-        for (int i = 0; i < profesores.size(); i++) {
-            System.out.println((i + 1) + ". " + profesores.get(i).getNombre() + " (ID: " + profesores.get(i).getId() + ")");
+        Fase(double fraccion, int... pesos) {
+            this.fraccion = fraccion;
+            this.acumulados = new int[pesos.length];
+            int suma = 0;
+            for (int i = 0; i < pesos.length; i++) {
+                suma += pesos[i];
+                acumulados[i] = suma;
+            }
         }
         
-        System.out.print("Seleccione el número del profesor: ");
-        try {
-            int seleccion = Integer.parseInt(scanner.nextLine()) - 1;
-            if (seleccion >= 0 && seleccion < profesores.size()) {
-                Curso curso = new Curso(nombreCurso, profesores.get(seleccion));
-                registrarCurso(curso);
-            } else {
-                System.out.println("Selección inválida.");
+        Operacion elegir(SplittableRandom azar) {
+            int valor = azar.nextInt(acumulados[acumulados.length - 1]);
+            int i = 0;
+            while (acumulados[i] <= valor) {
+                i++;
             }
-        } catch (NumberFormatException e) {
-            System.out.println("Error: Ingrese un número válido.");
+            return Operacion.values()[i];
+        }
+        
+        // Fase correspondiente a una posición del periodo en [0, 1)
+        static Fase en(double posicion) {
+            double limite = 0;
+            for (Fase fase : values()) {
+                limite += fase.fraccion;
+                if (posicion < limite) {
+                    return fase;
+                }
+            }
+            return CALIFICACIONES;
         }
     }
     
-    public void agregarEstudianteACurso() {
-        System.out.println("\n=== AGREGAR ESTUDIANTE A CURSO ===");
-        if (cursos.isEmpty()) {
-            System.out.println("Error: No hay cursos registrados.");
-            return;
+    private static final int MAXIMO_CURSOS_POR_ESTUDIANTE = 6;
+    private static final int MAXIMO_CALIFICACIONES = 40;
+    private static final String[] NOMBRES = {
+        "Ana", "Luis", "María", "José", "Lucía", "Carlos", "Sofía", "Diego", "Valeria", "Andrés", "Camila", "Jorge"
+    };
+    private static final String[] APELLIDOS = {
+        "García", "Rodríguez", "López", "Martínez", "Pérez", "Gómez", "Sánchez", "Díaz", "Torres", "Ramírez", "Flores"
+    };
+    
+    private final SistemaGestionCursos sistema;
+    private final int hilos;
+    private final long semilla;
+    private final int maximoEstudiantes;
+    private final int maximoProfesores;
+    private final int maximoCursos;
+    private final long periodoNanos;
+    // Prefijo de los IDs y nombres generados: la misma semilla produce los mismos datos
+    private final String prefijo;
+    private final AtomicLong siguienteEstudiante;
+    private final AtomicLong siguienteProfesor;
+    private final AtomicLong siguienteCurso;
+    private final HistogramaLatencia[] latencias;
+    private final HistogramaLatencia latenciasIntervalo;
+    private final LongAdder[] rechazadas;
+    private final LongAdder errores;
+    private volatile String primerError;
+    private volatile long inicio;
+    
+    public GeneradorCarga(SistemaGestionCursos sistema, int hilos, long semilla, int maximoEstudiantes, long periodoNanos) {
+        this.sistema = sistema;
+        this.hilos = hilos;
+        this.semilla = semilla;
+        this.maximoEstudiantes = maximoEstudiantes;
+        this.maximoProfesores = Math.max(1, maximoEstudiantes / 100);
+        this.maximoCursos = Math.max(1, maximoEstudiantes / 50);
+        this.periodoNanos = periodoNanos;
+        this.prefijo = "G" + semilla + "-";
+        this.siguienteEstudiante = new AtomicLong();
+        this.siguienteProfesor = new AtomicLong();
+        this.siguienteCurso = new AtomicLong();
+        this.latencias = new HistogramaLatencia[Operacion.values().length];
+        this.rechazadas = new LongAdder[latencias.length];
+        for (int i = 0; i < latencias.length; i++) {
+            latencias[i] = new HistogramaLatencia();
+            rechazadas[i] = new LongAdder();
         }
-        if (getEstudiantes().isEmpty()) {
-            System.out.println("Error: No hay estudiantes registrados.");
-            return;
+        this.latenciasIntervalo = new HistogramaLatencia();
+        this.errores = new LongAdder();
+    }
+    
+    // Ejecuta la carga durante la duración indicada; muestra una línea por intervalo y un resumen al final
+    public void ejecutar(long duracionNanos, long intervaloNanos) throws InterruptedException {
+        System.out.println("Carga: " + hilos + " hilos, semilla " + semilla + ", hasta " + maximoEstudiantes + 
+                           " estudiantes, periodo de " + periodoNanos / 1_000_000_000 + " s, duración " + 
+                           duracionNanos / 1_000_000_000 + " s");
+        // Las semillas de los hilos se derivan en orden antes de arrancarlos
+        SplittableRandom raiz = new SplittableRandom(semilla);
+        SplittableRandom[] azares = new SplittableRandom[hilos];
+        for (int h = 0; h < hilos; h++) {
+            azares[h] = raiz.split();
         }
-        
-        // Mostrar cursos
-        System.out.println("Cursos disponibles:");
-        for (int i = 0; i < cursos.size(); i++) {
-            System.out.println((i + 1) + ". " + cursos.get(i).getNombreCurso());
+        EstadoMemoria memoriaInicial = EstadoMemoria.leer();
+        inicio = System.nanoTime();
+        long fin = inicio + duracionNanos;
+        ExecutorService grupo = Executors.newFixedThreadPool(hilos);
+        for (int h = 0; h < hilos; h++) {
+            SplittableRandom azar = azares[h];
+            grupo.execute(() -> trabajar(azar, fin));
         }
+        grupo.shutdown();
         
-        System.out.print("Seleccione el número del curso: ");
-        try {
-            int cursoSeleccion = Integer.parseInt(scanner.nextLine()) - 1;
-            if (cursoSeleccion >= 0 && cursoSeleccion < cursos.size()) {
-                // Mostrar estudiantes
-                System.out.println("Estudiantes disponibles:");
-                List<Estudiante> estudiantes = getEstudiantes();
-                for (int i = 0; i < estudiantes.size(); i++) {
-                    System.out.println((i + 1) + ". " + estudiantes.get(i).getNombre() + " (ID: " + estudiantes.get(i).getId() + ")");
+        EstadoMemoria anterior = memoriaInicial;
+        long operacionesAnteriores = 0;
+        long instanteAnterior = inicio;
+        long pico = 0;
+        while (!grupo.awaitTermination(Math.max(0, instanteAnterior + intervaloNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            long ahora = System.nanoTime();
+            HistogramaLatencia.Instantanea intervalo = latenciasIntervalo.instantanea();
+            latenciasIntervalo.reiniciar();
+            long operaciones = getOperaciones();
+            EstadoMemoria memoria = EstadoMemoria.leer();
+            pico = Math.max(pico, memoria.usado);
+            System.out.println(String.format(Locale.ROOT, 
+                    "[%6d s] %-14s %10.0f op/s, p50 %s, p99 %s, p999 %s, heap %d/%d MB, tras GC %d MB, GC %d (%d ms), estudiantes %d",
+                    (ahora - inicio) / 1_000_000_000, fase(ahora).name(), 
+                    (operaciones - operacionesAnteriores) * 1e9 / (ahora - instanteAnterior),
+                    microsegundos(intervalo.getPercentilNanos(50)), microsegundos(intervalo.getPercentilNanos(99)),
+                    microsegundos(intervalo.getPercentilNanos(99.9)), memoria.usado >> 20, memoria.comprometido >> 20,
+                    memoria.trasGc >> 20, memoria.colecciones - anterior.colecciones,
+                    memoria.milisegundosGc - anterior.milisegundosGc, Math.min(siguienteEstudiante.get(), maximoEstudiantes)));
+            anterior = memoria;
+            operacionesAnteriores = operaciones;
+            instanteAnterior = ahora;
+        }
+        long nanos = Math.max(1, System.nanoTime() - inicio);
+        mostrarResumen(nanos, memoriaInicial, Math.max(pico, EstadoMemoria.leer().usado));
+    }
+    
+    private void trabajar(SplittableRandom azar, long fin) {
+        Reporte nomina = new Reporte(Writer.nullWriter(), Reporte.Formato.TEXTO);
+        long ahora = System.nanoTime();
+        while (ahora < fin) {
+            Operacion operacion = fase(ahora).elegir(azar);
+            try {
+                Operacion realizada = ejecutar(operacion, azar, nomina);
+                if (realizada == null) {
+                    rechazadas[operacion.ordinal()].increment();
+                } else {
+                    operacion = realizada;
                 }
-                
-                System.out.print("Seleccione el número del estudiante: ");
-                int estudianteSeleccion = Integer.parseInt(scanner.nextLine()) - 1;
-                if (estudianteSeleccion >= 0 && estudianteSeleccion < estudiantes.size()) {
-                    cursos.get(cursoSeleccion).agregarEstudiante(estudiantes.get(estudianteSeleccion));
+            } catch (RuntimeException e) {
+                if (primerError == null) {
+                    primerError = operacion + ": " + e;
+                }
+                errores.increment();
+            }
+            long despues = System.nanoTime();
+            latencias[operacion.ordinal()].registrar(despues - ahora);
+            latenciasIntervalo.registrar(despues - ahora);
+            ahora = despues;
+        }
+    }
+    
+    private Fase fase(long ahora) {
+        return Fase.en((double) ((ahora - inicio) % periodoNanos) / periodoNanos);
+    }
+    
+    // Devuelve la operación realizada (una consulta si se llegó a algún tope) o null si el sistema
+    // la rechazó, por ejemplo una inscripción repetida
+    private Operacion ejecutar(Operacion operacion, SplittableRandom azar, Reporte nomina) {
+        switch (operacion) {
+            case ALTA_ESTUDIANTE: {
+                long numero = siguienteEstudiante.getAndIncrement();
+                if (numero >= maximoEstudiantes) {
+                    return consultar(azar);
+                }
+                return sistema.agregarPersona(new Estudiante(nombre(azar), prefijo + "E" + numero)) ? operacion : null;
+            }
+            case ALTA_PROFESOR: {
+                long numero = siguienteProfesor.getAndIncrement();
+                if (numero >= maximoProfesores) {
+                    return consultar(azar);
+                }
+                String id = prefijo + "P" + numero;
+                Persona profesor = azar.nextInt(10) < 7
+                        ? new ProfesorTiempoCompleto(nombre(azar), id, 1500 + 100 * azar.nextInt(31))
+                        : new ProfesorPorHoras(nombre(azar), id, 20 + azar.nextInt(141), 15 + azar.nextInt(26));
+                return sistema.agregarPersona(profesor) ? operacion : null;
+            }
+            case ALTA_CURSO: {
+                long numero = siguienteCurso.getAndIncrement();
+                if (numero >= maximoCursos) {
+                    return consultar(azar);
+                }
+                sistema.agregarCurso(new Curso("Curso " + prefijo + numero, elegir(sistema.getProfesores(), azar)));
+                return operacion;
+            }
+            case INSCRIPCION: {
+                Estudiante estudiante = elegir(sistema.getEstudiantes(), azar);
+                List<Curso> cursos = sistema.getCursos();
+                if (estudiante == null || cursos.isEmpty()) {
+                    return consultar(azar);
+                }
+                // Los primeros cursos son los más solicitados: la avalancha se concentra en pocos candados
+                double sesgo = azar.nextDouble();
+                Curso curso = cursos.get((int) (cursos.size() * sesgo * sesgo));
+                // Con el máximo de cursos el estudiante da de baja uno antes de inscribirse en otro
+                if (estudiante.getCursos().size() >= MAXIMO_CURSOS_POR_ESTUDIANTE) {
+                    Iterator<Curso> inscritos = estudiante.getCursos().iterator();
+                    if (inscritos.hasNext()) {
+                        inscritos.next().desinscribir(estudiante);
+                    }
+                }
+                return curso.inscribir(estudiante) ? operacion : null;
+            }
+            case CALIFICACION: {
+                Estudiante estudiante = elegir(sistema.getEstudiantes(), azar);
+                if (estudiante == null || estudiante.getRegistroCalificaciones().getCantidad() >= MAXIMO_CALIFICACIONES) {
+                    return consultar(azar);
+                }
+                // Aproximadamente normal con media 7 y desviación 1.5, redondeada a décimas
+                double valor = 7 + 3 * (azar.nextDouble() + azar.nextDouble() + azar.nextDouble() - 1.5);
+                return estudiante.registrarCalificacion(Math.round(Math.max(0, Math.min(10, valor)) * 10) / 10.0) ? operacion : null;
+            }
+            case CAMBIO_PAGO: {
+                Persona profesor = elegir(sistema.getProfesores(), azar);
+                if (profesor instanceof ProfesorTiempoCompleto) {
+                    ((ProfesorTiempoCompleto) profesor).setSalarioMensual(1500 + 100 * azar.nextInt(31));
+                } else if (profesor instanceof ProfesorPorHoras) {
+                    ((ProfesorPorHoras) profesor).setHorasTrabajadas(20 + azar.nextInt(141));
                 } else {
-                    System.out.println("Selección de estudiante inválida.");
+                    return consultar(azar);
                 }
-            } else {
-                System.out.println("Selección de curso inválida.");
+                return operacion;
             }
-        } catch (NumberFormatException e) {
-            System.out.println("Error: Ingrese un número válido.");
+            case NOMINA:
+                sistema.procesarPagos(nomina);
+                nomina.vaciar();
+                return nomina.hayError() ? null : operacion;
+            default:
+                return consultar(azar);
         }
     }
     
-    public void agregarCalificacionAEstudiante() {
-        System.out.println("\n=== AGREGAR CALIFICACIÓN A ESTUDIANTE ===");
-        List<Estudiante> estudiantes = getEstudiantes();
-        if (estudiantes.isEmpty()) {
-            System.out.println("Error: No hay estudiantes registrados.");
-            return;
+    // Un estudiante consulta su promedio; puede no estar registrado todavía
+    private Operacion consultar(SplittableRandom azar) {
+        long generados = Math.min(siguienteEstudiante.get(), maximoEstudiantes);
+        Persona persona = sistema.buscarPersonaPorId(prefijo + "E" + azar.nextLong(Math.max(1, generados)));
+        if (persona instanceof Estudiante) {
+            ((Estudiante) persona).promedioActual();
+        }
+        return Operacion.CONSULTA;
+    }
+    
+    private static <T> T elegir(List<T> lista, SplittableRandom azar) {
+        int cantidad = lista.size();
+        return cantidad == 0 ? null : lista.get(azar.nextInt(cantidad));
+    }
+    
+    private static String nombre(SplittableRandom azar) {
+        return NOMBRES[azar.nextInt(NOMBRES.length)] + " " + APELLIDOS[azar.nextInt(APELLIDOS.length)];
+    }
+    
+    public long getOperaciones() {
+        long total = 0;
+        for (HistogramaLatencia latencia : latencias) {
+            total += latencia.instantanea().getCantidad();
+        }
+        return total;
+    }
+    
+    public long getErrores() {
+        return errores.sum();
+    }
+    
+    private void mostrarResumen(long nanos, EstadoMemoria memoriaInicial, long pico) {
+        System.out.println(String.format(Locale.ROOT, "Resumen de la carga en %d ms:", nanos / 1_000_000));
+        long total = 0;
+        for (Operacion operacion : Operacion.values()) {
+            HistogramaLatencia.Instantanea instantanea = latencias[operacion.ordinal()].instantanea();
+            total += instantanea.getCantidad();
+            if (instantanea.getCantidad() == 0) {
+                continue;
+            }
+            System.out.println(String.format(Locale.ROOT, 
+                    "  %-16s %11d op %11.0f op/s, p50 %s, p99 %s, p999 %s, máx %s, rechazadas %d",
+                    operacion.name(), instantanea.getCantidad(), instantanea.getCantidad() * 1e9 / nanos,
+                    microsegundos(instantanea.getPercentilNanos(50)), microsegundos(instantanea.getPercentilNanos(99)),
+                    microsegundos(instantanea.getPercentilNanos(99.9)), microsegundos(instantanea.getMaximoNanos()),
+                    rechazadas[operacion.ordinal()].sum()));
+        }
+        System.out.println(String.format(Locale.ROOT, "  %-16s %11d op %11.0f op/s, errores %d", 
+                "TOTAL", total, total * 1e9 / nanos, errores.sum()));
+        if (primerError != null) {
+            System.out.println("  Primer error: " + primerError);
         }
+        EstadoMemoria memoria = EstadoMemoria.leer();
+        System.out.println(String.format(Locale.ROOT, "  Heap: pico %d MB, tras el último GC %d MB, máximo %d MB",
+                pico >> 20, memoria.trasGc >> 20, memoria.maximo >> 20));
+        for (GarbageCollectorMXBean colector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            System.out.println("  GC " + colector.getName() + ": " + colector.getCollectionCount() + 
+                               " colecciones, " + colector.getCollectionTime() + " ms");
+        }
+        System.out.println(String.format(Locale.ROOT, "  GC durante la carga: %d colecciones, %d ms (%.2f %% del tiempo)",
+                memoria.colecciones - memoriaInicial.colecciones, memoria.milisegundosGc - memoriaInicial.milisegundosGc,
+                (memoria.milisegundosGc - memoriaInicial.milisegundosGc) * 1e8 / nanos));
+        System.out.println("  Población: " + sistema.getEstudiantes().size() + " estudiantes, " + 
+                           sistema.getProfesores().size() + " profesores, " + sistema.getCursos().size() + " cursos");
+    }
+    
+    // Latencias de operaciones en memoria: se muestran en microsegundos
+    private static String microsegundos(long nanos) {
+        return String.format(Locale.ROOT, "%.1f µs", nanos / 1e3);
+    }
+    
+    // Heap y recolecciones acumuladas según los MXBeans de la JVM
+    private static final class EstadoMemoria {
+        final long usado;
+        final long comprometido;
+        final long maximo;
+        final long trasGc;
+        final long colecciones;
+        final long milisegundosGc;
         
-        System.out.println("Estudiantes disponibles:");
-        for (int i = 0; i < estudiantes.size(); i++) {
-            System.out.println((i + 1) + ". " + estudiantes.get(i).getNombre() + " (ID: " + estudiantes.get(i).getId() + ")");
+        private EstadoMemoria(long usado, long comprometido, long maximo, long trasGc, long colecciones, long milisegundosGc) {
+            this.usado = usado;
+            this.comprometido = comprometido;
+            this.maximo = maximo;
+            this.trasGc = trasGc;
+            this.colecciones = colecciones;
+            this.milisegundosGc = milisegundosGc;
         }
         
-        System.out.print("Seleccione el número del estudiante: ");
-        try {
-            int seleccion = Integer.parseInt(scanner.nextLine()) - 1;
-            if (seleccion >= 0 && seleccion < estudiantes.size()) {
-                System.out.print("Ingrese la calificación (0-10): ");
-                double calificacion = Double.parseDouble(scanner.nextLine());
-                estudiantes.get(seleccion).agregarCalificacion(calificacion);
-            } else {
-                System.out.println("Selección inválida.");
+        static EstadoMemoria leer() {
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            // Lo que quedó en cada zona del heap tras su última recolección: aproxima los datos vivos
+            long trasGc = 0;
+            for (MemoryPoolMXBean zona : ManagementFactory.getMemoryPoolMXBeans()) {
+                MemoryUsage uso = zona.getCollectionUsage();
+                if (zona.getType() == MemoryType.HEAP && uso != null) {
+                    trasGc += uso.getUsed();
+                }
             }
-        } catch (NumberFormatException e) {
-            System.out.println("Error: Ingrese valores válidos.");
+            long colecciones = 0;
+            long milisegundos = 0;
+            for (GarbageCollectorMXBean colector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                colecciones += Math.max(0, colector.getCollectionCount());
+                milisegundos += Math.max(0, colector.getCollectionTime());
+            }
+            return new EstadoMemoria(heap.getUsed(), heap.getCommitted(), heap.getMax(), trasGc, colecciones, milisegundos);
         }
     }
+}
+
+// Clase principal de Maven
+public class Paradigmas {
     
-    public void buscarPersonaPorId() {
-        System.out.println("\n=== BUSCAR PERSONA POR ID ===");
-        System.out.print("Ingrese el ID a buscar: ");
-        String id = scanner.nextLine();
+    // Eventos del diario entre instantáneas automáticas
+    private static final long EVENTOS_POR_INSTANTANEA = 1_000_000;
+    // Segundos entre las líneas de avance de --carga
+    private static final int INTERVALO_CARGA_SEGUNDOS = 10;
+    
+    // Uso: java Paradigmas [--datos directorio [--inicio-rapido]] [--importar archivo.csv|archivo.jsonl]...
+    //                     [--calificaciones archivo.csv]... [--metricas archivo.json] [--servidor puerto]
+    //                     [--consultar id]... [--sin-menu]
+    // Modo fragmentado: java Paradigmas --fragmentos N --servidor puerto [--datos directorio] [--probar estudiantes]
+    //                   java Paradigmas --enrutar http://host:puerto,... --servidor puerto
+    // Carga sintética: java Paradigmas --carga segundos [--hilos n] [--semilla n] [--periodo segundos]
+    //                                  [--estudiantes n] [--datos directorio] [--metricas archivo.json]
+    public static void main(String[] args) {
+        // Antes de crear cualquier servidor HTTP (ver ServidorHttp.PROPIEDAD_NODELAY)
+        if (System.getProperty(ServidorHttp.PROPIEDAD_NODELAY) == null) {
+            System.setProperty(ServidorHttp.PROPIEDAD_NODELAY, "true");
+        }
+        SistemaGestionCursos sistema = new SistemaGestionCursos();
         
-        for (Persona persona : personas) {
-            if (persona.getId().equalsIgnoreCase(id)) {
-                System.out.println("Persona encontrada:");
-                persona.mostrarInformacion();
+        List<String> archivosImportacion = new ArrayList<>();
+        List<String> archivosCalificaciones = new ArrayList<>();
+        String directorioDatos = null;
+        boolean mostrarMenu = true;
+        String archivoMetricas = null;
+        int puertoServidor = -1;
+        boolean inicioRapido = false;
+        List<String> consultas = new ArrayList<>();
+        int cantidadFragmentos = 0;
+        String direccionesFragmentos = null;
+        int estudiantesPrueba = -1;
+        int segundosCarga = 0;
+        int hilosCarga = Runtime.getRuntime().availableProcessors();
+        long semillaCarga = 42;
+        int segundosPeriodo = 0;
+        int estudiantesCarga = 100_000;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--datos") && i + 1 < args.length) {
+                directorioDatos = args[++i];
+            } else if (args[i].equals("--importar") && i + 1 < args.length) {
+                archivosImportacion.add(args[++i]);
+            } else if (args[i].equals("--servidor") && i + 1 < args.length) {
+                try {
+                    puertoServidor = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Puerto inválido: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals("--metricas") && i + 1 < args.length) {
+                archivoMetricas = args[++i];
+            } else if (args[i].equals("--calificaciones") && i + 1 < args.length) {
+                archivosCalificaciones.add(args[++i]);
+            } else if (args[i].equals("--consultar") && i + 1 < args.length) {
+                consultas.add(args[++i]);
+            } else if ((args[i].equals("--fragmentos") || args[i].equals("--probar") || args[i].equals("--carga") || 
+                        args[i].equals("--hilos") || args[i].equals("--periodo") || args[i].equals("--estudiantes")) && 
+                       i + 1 < args.length) {
+                try {
+                    int valor = Integer.parseInt(args[i + 1]);
+                    if (valor <= 0) {
+                        throw new NumberFormatException();
+                    }
+                    switch (args[i]) {
+                        case "--fragmentos":
+                            cantidadFragmentos = valor;
+                            break;
+                        case "--probar":
+                            estudiantesPrueba = valor;
+                            break;
+                        case "--carga":
+                            segundosCarga = valor;
+                            break;
+                        case "--hilos":
+                            hilosCarga = valor;
+                            break;
+                        case "--periodo":
+                            segundosPeriodo = valor;
+                            break;
+                        default:
+                            estudiantesCarga = valor;
+                    }
+                    i++;
+                } catch (NumberFormatException e) {
+                    System.out.println("Valor inválido para " + args[i] + ": " + args[i + 1]);
+                    return;
+                }
+            } else if (args[i].equals("--semilla") && i + 1 < args.length) {
+                try {
+                    semillaCarga = Long.parseLong(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Semilla inválida: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals("--enrutar") && i + 1 < args.length) {
+                direccionesFragmentos = args[++i];
+            } else if (args[i].equals("--inicio-rapido")) {
+                inicioRapido = true;
+            } else if (args[i].equals("--sin-menu")) {
+                mostrarMenu = false;
+            } else {
+                System.out.println("Argumento no reconocido: " + args[i]);
                 return;
             }
         }
-        System.out.println("No se encontró ninguna persona con el ID: " + id);
-    }
-    
-    public void buscarCursoPorNombre() {
-        System.out.println("\n=== BUSCAR CURSO POR NOMBRE ===");
-        System.out.print("Ingrese el nombre del curso a buscar: ");
-        String nombre = scanner.nextLine();
         
-        for (Curso curso : cursos) {
-            if (curso.getNombreCurso().toLowerCase().contains(nombre.toLowerCase())) {
-                curso.mostrarInformacionCurso();
+        if (cantidadFragmentos > 0 || direccionesFragmentos != null) {
+            iniciarFragmentado(cantidadFragmentos, direccionesFragmentos, puertoServidor, directorioDatos, estudiantesPrueba);
+            return;
+        }
+        
+        Persistencia persistencia = null;
+        CargaDiferida carga = null;
+        if (directorioDatos != null) {
+            try {
+                if (inicioRapido) {
+                    carga = Persistencia.abrirDiferido(sistema, Paths.get(directorioDatos), EVENTOS_POR_INSTANTANEA);
+                    System.out.println("Cargando datos en segundo plano...");
+                } else {
+                    persistencia = Persistencia.abrir(sistema, Paths.get(directorioDatos), EVENTOS_POR_INSTANTANEA);
+                    System.out.println("Datos cargados: " + sistema.getPersonas().size() + " personas y " + 
+                                       sistema.getCursos().size() + " cursos en " + persistencia.getMilisegundosCarga() + 
+                                       " ms (" + persistencia.getEventosReproducidos() + " eventos del diario)");
+                }
+            } catch (IOException e) {
+                System.out.println("Error al cargar los datos de " + directorioDatos + ": " + e.getMessage());
                 return;
             }
+            Persistencia alCerrar = persistencia;
+            CargaDiferida cargaAlCerrar = carga;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                Persistencia abierta = alCerrar;
+                if (cargaAlCerrar != null) {
+                    try {
+                        abierta = cargaAlCerrar.esperar();
+                    } catch (IOException e) {
+                        // Sin los datos completos no se guarda nada: la instantánea del disco sigue siendo la válida
+                        return;
+                    }
+                }
+                cerrar(abierta);
+            }));
+        }
+        
+        // Consultas medidas desde el arranque de la JVM, para comparar el inicio con y sin --inicio-rapido
+        for (String id : consultas) {
+            Persona persona = sistema.buscarPersonaPorId(id);
+            System.out.println("Consulta " + id + ": " + (persona != null ? persona.getNombre() : "no encontrada") + 
+                               " (" + milisegundosDesdeArranque() + " ms desde el arranque)");
+        }
+        // Importar, cargar calificaciones o servir por HTTP necesitan los datos completos
+        if (carga != null && (!archivosImportacion.isEmpty() || !archivosCalificaciones.isEmpty() || puertoServidor >= 0)) {
+            try {
+                persistencia = carga.esperar();
+            } catch (IOException e) {
+                System.out.println("Sin los datos completos no se importa ni se inicia el servidor.");
+                return;
+            }
+        }
+        
+        if (!archivosImportacion.isEmpty()) {
+            ImportadorMasivo importador = new ImportadorMasivo(sistema);
+            for (String archivo : archivosImportacion) {
+                try {
+                    importador.importar(Paths.get(archivo)).mostrarResumen();
+                } catch (IOException e) {
+                    System.out.println("Error al leer " + archivo + ": " + e.getMessage());
+                }
+            }
+        }
+        if (!archivosCalificaciones.isEmpty()) {
+            cargarCalificaciones(sistema, archivosCalificaciones);
+        }
+        if (segundosCarga > 0) {
+            if (carga != null) {
+                try {
+                    persistencia = carga.esperar();
+                } catch (IOException e) {
+                    System.out.println("Sin los datos completos no se ejecuta la prueba de carga.");
+                    return;
+                }
+            }
+            // Sin --periodo, toda la ejecución es un solo periodo académico
+            GeneradorCarga generador = new GeneradorCarga(sistema, hilosCarga, semillaCarga, estudiantesCarga,
+                    TimeUnit.SECONDS.toNanos(segundosPeriodo > 0 ? segundosPeriodo : segundosCarga));
+            try {
+                generador.ejecutar(TimeUnit.SECONDS.toNanos(segundosCarga), TimeUnit.SECONDS.toNanos(INTERVALO_CARGA_SEGUNDOS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            cerrar(persistencia);
+            if (archivoMetricas != null) {
+                volcarMetricas(Paths.get(archivoMetricas));
+            }
+            return;
+        }
+        if (puertoServidor >= 0) {
+            iniciarServidor(sistema, puertoServidor, persistencia, archivoMetricas);
+            return;
+        }
+        if (mostrarMenu) {
+            System.out.println("╔══════════════════════════════════════════════╗");
+            System.out.println("║    BIENVENIDO AL SISTEMA DE GESTIÓN DE       ║");
+            System.out.println("║            CURSOS ACADÉMICOS                 ║");
+            System.out.println("╚══════════════════════════════════════════════╝");
+            if (directorioDatos != null) {
+                System.out.println("Menú listo (" + milisegundosDesdeArranque() + " ms desde el arranque)");
+            }
+            
+            // Ejecutar el menú interactivo
+            sistema.ejecutarMenu();
+        }
+        if (carga != null) {
+            try {
+                persistencia = carga.esperar();
+            } catch (IOException e) {
+                // El error ya se mostró y no hay nada que guardar
+            }
+        }
+        cerrar(persistencia);
+        if (archivoMetricas != null) {
+            volcarMetricas(Paths.get(archivoMetricas));
         }
-        System.out.println("No se encontró ningún curso que contenga: " + nombre);
     }
     
-    // Métodos auxiliares
-    private List<Persona> getProfesores() {
-        List<Persona> profesores = new ArrayList<>();
-        for (Persona persona : personas) {
-            if (persona instanceof ProfesorTiempoCompleto || persona instanceof ProfesorPorHoras) {
-                profesores.add(persona);
+    // Carga de calificaciones por lotes; se muestra una línea por lote aplicado
+    private static void cargarCalificaciones(SistemaGestionCursos sistema, List<String> archivos) {
+        long inicio = System.nanoTime();
+        IngestaCalificaciones ingesta = new IngestaCalificaciones(sistema, 16, System.out::println);
+        // Al cerrar se esperan los lotes pendientes; el resumen se muestra después
+        try (ingesta) {
+            for (String archivo : archivos) {
+                try {
+                    ingesta.cargarArchivo(Paths.get(archivo));
+                } catch (IOException e) {
+                    System.out.println("Error al leer " + archivo + ": " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
             }
         }
-        return profesores;
+        System.out.println("Calificaciones aplicadas: " + ingesta.getAplicadas() + ", rechazadas: " + 
+                           ingesta.getRechazadas() + " en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
     }
     
-    private List<Estudiante> getEstudiantes() {
-        List<Estudiante> estudiantes = new ArrayList<>();
-        for (Persona persona : personas) {
-            if (persona instanceof Estudiante) {
-                estudiantes.add((Estudiante) persona);
-            }
+    // El proceso sigue activo mientras el servidor atiende; al terminarlo (Ctrl+C) se detiene
+    // el servidor antes de guardar los datos
+    private static void iniciarServidor(SistemaGestionCursos sistema, int puerto, Persistencia persistencia,
+                                        String archivoMetricas) {
+        ServidorHttp servidor;
+        try {
+            servidor = ServidorHttp.iniciar(sistema, puerto);
+        } catch (IOException e) {
+            System.out.println("Error al iniciar el servidor en el puerto " + puerto + ": " + e.getMessage());
+            cerrar(persistencia);
+            return;
         }
-        return estudiantes;
+        System.out.println("Servidor escuchando en http://localhost:" + servidor.getPuerto() + 
+                           (servidor.usaHilosVirtuales() ? " (hilos virtuales)" : " (grupo de hilos)"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.close();
+            cerrar(persistencia);
+            if (archivoMetricas != null) {
+                volcarMetricas(Paths.get(archivoMetricas));
+            }
+        }));
     }
     
-    public void ejecutarMenu() {
-        int opcion;
-        
-        do {
-            mostrarMenu();
-            try {
-                opcion = Integer.parseInt(scanner.nextLine());
-                
-                switch (opcion) {
-                    case 1:
-                        registrarProfesorTiempoCompleto();
-                        break;
-                    case 2:
-                        registrarProfesorPorHoras();
-                        break;
-                    case 3:
-                        registrarEstudiante();
-                        break;
-                    case 4:
-                        crearCurso();
-                        break;
-                    case 5:
-                        agregarEstudianteACurso();
-                        break;
-                    case 6:
-                        agregarCalificacionAEstudiante();
-                        break;
-                    case 7:
-                        mostrarTodasLasPersonas();
-                        break;
-                    case 8:
-                        mostrarTodosLosCursos();
-                        break;
-                    case 9:
-                        procesarPagos();
-                        break;
-                    case 10:
-                        procesarPromedios();
-                        break;
-                    case 11:
-                        buscarPersonaPorId();
-                        break;
-                    case 12:
-                        buscarCursoPorNombre();
-                        break;
-                    case 0:
-                        System.out.println("¡Gracias por usar el Sistema de Gestión de Cursos!");
-                        break;
-                    default:
-                        System.out.println("Opción inválida. Por favor, seleccione una opción válida.");
+    // Con --fragmentos lanza los procesos de los fragmentos en los puertos siguientes al del enrutador;
+    // con --enrutar solo enruta hacia fragmentos ya iniciados
+    private static void iniciarFragmentado(int cantidad, String direcciones, int puerto, String directorio,
+                                           int estudiantesPrueba) {
+        if (puerto < 0 && (direcciones != null || estudiantesPrueba < 0)) {
+            System.out.println("El modo fragmentado necesita --servidor puerto.");
+            return;
+        }
+        try {
+            if (estudiantesPrueba > 0) {
+                Path datos = directorio != null ? Paths.get(directorio) : Files.createTempDirectory("fragmentos");
+                ArnesFragmentos.probar(Math.max(1, cantidad), puerto >= 0 ? puerto : 8080, datos, estudiantesPrueba, 64);
+                return;
+            }
+            ArnesFragmentos arnes = null;
+            List<URI> fragmentos = new ArrayList<>();
+            if (direcciones != null) {
+                for (String direccion : direcciones.split(",")) {
+                    fragmentos.add(URI.create(direccion.trim()));
                 }
-                
-                if (opcion != 0) {
-                    System.out.println("\nPresione Enter para continuar...");
-                    scanner.nextLine();
+            } else {
+                arnes = ArnesFragmentos.iniciar(cantidad, puerto + 1,
+                        Paths.get(directorio != null ? directorio : "fragmentos"), List.of());
+                fragmentos = arnes.getDirecciones();
+            }
+            EnrutadorFragmentos enrutador;
+            try {
+                enrutador = EnrutadorFragmentos.iniciar(fragmentos, puerto);
+            } catch (IOException | RuntimeException e) {
+                // Sin enrutador no se deben dejar procesos de fragmentos huérfanos
+                if (arnes != null) {
+                    arnes.close();
                 }
-                
-            } catch (NumberFormatException e) {
-                opcion = -1;
-                System.out.println("Error: Ingrese un número válido.");
-                System.out.println("\nPresione Enter para continuar...");
-                scanner.nextLine();
+                throw e;
             }
-            
-        } while (opcion != 0);
+            System.out.println("Enrutador escuchando en http://localhost:" + enrutador.getPuerto() + " sobre " + 
+                               enrutador.getCantidadFragmentos() + " fragmentos: " + fragmentos);
+            ArnesFragmentos alCerrar = arnes;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                enrutador.close();
+                if (alCerrar != null) {
+                    alCerrar.close();
+                }
+            }));
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            System.out.println("Error en el modo fragmentado: " + e.getMessage());
+        }
     }
-}
-
-// Clase principal de Maven
-public class Paradigmas {
     
-    public static void main(String[] args) {
-        SistemaGestionCursos sistema = new SistemaGestionCursos();
-        
-        System.out.println("╔══════════════════════════════════════════════╗");
-        System.out.println("║    BIENVENIDO AL SISTEMA DE GESTIÓN DE       ║");
-        System.out.println("║            CURSOS ACADÉMICOS                 ║");
-        System.out.println("╚══════════════════════════════════════════════╝");
-        
-        // Ejecutar el menú interactivo
-        sistema.ejecutarMenu();
+    // Incluye el arranque de la propia JVM, que es lo que reduce un archivo CDS
+    private static long milisegundosDesdeArranque() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+    
+    // El formato del volcado se deduce de la extensión del archivo
+    private static void volcarMetricas(Path archivo) {
+        String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        Reporte.Formato formato = nombre.endsWith(".json") ? Reporte.Formato.JSON
+                : nombre.endsWith(".csv") ? Reporte.Formato.CSV : Reporte.Formato.TEXTO;
+        try {
+            Metricas.GLOBAL.volcar(archivo, formato);
+            System.out.println("Métricas guardadas en " + archivo);
+        } catch (IOException e) {
+            System.out.println("Error al guardar las métricas: " + e.getMessage());
+        }
+    }
+    
+    private static void cerrar(Persistencia persistencia) {
+        if (persistencia == null) {
+            return;
+        }
+        try {
+            persistencia.close();
+        } catch (IOException e) {
+            System.out.println("Error al guardar los datos: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,68 @@
+package com.mycompany.paradigmas;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Búsqueda de personas por ID y de cursos por nombre
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BusquedaBenchmark {
+    
+    @Param({"1000", "100000", "1000000"})
+    int entidades;
+    
+    private SistemaGestionCursos sistema;
+    private String[] ids;
+    private String[] nombres;
+    private int siguiente;
+    
+    @Setup(Level.Trial)
+    public void preparar() {
+        sistema = DatosBenchmark.crearSistema(entidades, 0);
+        // Consultas precalculadas y en mayúsculas para recorrer también el plegado de mayúsculas
+        ids = new String[1024];
+        nombres = new String[1024];
+        java.util.Random aleatorio = new java.util.Random(DatosBenchmark.SEMILLA);
+        for (int i = 0; i < ids.length; i++) {
+            int indice = aleatorio.nextInt(entidades);
+            ids[i] = DatosBenchmark.idEstudiante(indice).toUpperCase();
+            nombres[i] = DatosBenchmark.nombreCurso(indice).toUpperCase();
+        }
+    }
+    
+    @Benchmark
+    public Persona buscarPersonaPorId() {
+        return sistema.buscarPersonaPorId(ids[siguiente++ & (ids.length - 1)]);
+    }
+    
+    @Benchmark
+    public Persona buscarPersonaInexistente() {
+        return sistema.buscarPersonaPorId("NO-EXISTE");
+    }
+    
+    @Benchmark
+    public List<Curso> buscarCursoPorNombre() {
+        return sistema.buscarCursoPorNombre(nombres[siguiente++ & (nombres.length - 1)]);
+    }
+    
+    @Benchmark
+    public Curso buscarCursoExacto() {
+        return sistema.buscarCursoExacto(nombres[siguiente++ & (nombres.length - 1)]);
+    }
+}
@@ -0,0 +1,47 @@
+package com.mycompany.paradigmas;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Promedios de toda la población leídos de cada Estudiante frente al almacén columnar fuera del heap
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ColumnarBenchmark {
+    
+    @Param({"1000", "100000", "1000000"})
+    int entidades;
+    
+    private SistemaGestionCursos objetos;
+    private SistemaGestionCursos columnar;
+    
+    @Setup(Level.Trial)
+    public void preparar() {
+        objetos = DatosBenchmark.crearSistema(entidades, 5);
+        columnar = DatosBenchmark.crearSistema(entidades, 5, true);
+    }
+    
+    @Benchmark
+    public double promedioInstitucionalObjetos() {
+        return objetos.calcularPromedios().getPromedioInstitucional();
+    }
+    
+    @Benchmark
+    public double promedioInstitucionalColumnar() {
+        return columnar.calcularPromedios().getPromedioInstitucional();
+    }
+}
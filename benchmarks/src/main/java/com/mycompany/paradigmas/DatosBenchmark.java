@@ -0,0 +1,53 @@
+package com.mycompany.paradigmas;
+
+import java.util.Random;
+
+// Construye sistemas de prueba de tamaño fijo para los benchmarks
+final class DatosBenchmark {
+    
+    // Semilla fija para que todas las ejecuciones midan los mismos datos
+    static final long SEMILLA = 42;
+    
+    private DatosBenchmark() {
+    }
+    
+    static String idEstudiante(int i) {
+        return "E" + i;
+    }
+    
+    static String nombreCurso(int i) {
+        return "Curso " + i;
+    }
+    
+    // Un profesor de cada tipo por cada diez estudiantes, un curso por estudiante
+    // y calificacionesPorEstudiante notas para cada estudiante
+    static SistemaGestionCursos crearSistema(int estudiantes, int calificacionesPorEstudiante) {
+        return crearSistema(estudiantes, calificacionesPorEstudiante, false);
+    }
+    
+    static SistemaGestionCursos crearSistema(int estudiantes, int calificacionesPorEstudiante,
+                                             boolean almacenColumnar) {
+        SistemaGestionCursos sistema = new SistemaGestionCursos(almacenColumnar);
+        Random aleatorio = new Random(SEMILLA);
+        int profesores = Math.max(1, estudiantes / 10);
+        Persona[] titulares = new Persona[profesores];
+        for (int i = 0; i < profesores; i++) {
+            Persona profesor = i % 2 == 0
+                    ? new ProfesorTiempoCompleto("Profesor " + i, "P" + i, 1000 + aleatorio.nextInt(4000))
+                    : new ProfesorPorHoras("Profesor " + i, "P" + i, 1 + aleatorio.nextInt(160), 10 + aleatorio.nextInt(40));
+            sistema.agregarPersona(profesor);
+            titulares[i] = profesor;
+        }
+        for (int i = 0; i < estudiantes; i++) {
+            Estudiante estudiante = new Estudiante("Estudiante " + i, idEstudiante(i));
+            for (int j = 0; j < calificacionesPorEstudiante; j++) {
+                estudiante.registrarCalificacion(aleatorio.nextInt(101) / 10.0);
+            }
+            sistema.agregarPersona(estudiante);
+        }
+        for (int i = 0; i < estudiantes; i++) {
+            sistema.agregarCurso(new Curso(nombreCurso(i), titulares[i % profesores]));
+        }
+        return sistema;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mycompany.paradigmas;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Inscripción en un curso que ya tiene un número grande de inscritos.
+// Se mide inscribir, el núcleo sin mensajes de agregarEstudiante, para no medir System.out
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class InscripcionBenchmark {
+    
+    @Param({"1000", "100000", "1000000"})
+    int entidades;
+    
+    private Curso curso;
+    private Estudiante nuevo;
+    private Estudiante inscrito;
+    
+    @Setup(Level.Trial)
+    public void preparar() {
+        SistemaGestionCursos sistema = DatosBenchmark.crearSistema(entidades, 3);
+        curso = sistema.getCurso(0);
+        for (Estudiante estudiante : sistema.getEstudiantes()) {
+            curso.inscribir(estudiante);
+        }
+        inscrito = (Estudiante) sistema.buscarPersonaPorId(DatosBenchmark.idEstudiante(entidades / 2));
+        nuevo = new Estudiante("Nuevo", "NUEVO");
+        nuevo.registrarCalificacion(7.5);
+        sistema.agregarPersona(nuevo);
+    }
+    
+    // Inscribe y remueve en cada invocación para que el tamaño del curso no cambie
+    @Benchmark
+    public boolean inscribirYRemover() {
+        return curso.inscribir(nuevo) & curso.desinscribir(nuevo);
+    }
+    
+    @Benchmark
+    public boolean inscribirDuplicado() {
+        return curso.inscribir(inscrito);
+    }
+    
+    // Lectura de los agregados del curso mientras la lista de inscritos es grande
+    @Benchmark
+    public double promedioCurso() {
+        return curso.getPromedioCurso();
+    }
+}
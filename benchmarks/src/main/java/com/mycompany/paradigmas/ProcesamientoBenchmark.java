@@ -0,0 +1,90 @@
+package com.mycompany.paradigmas;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Procesamiento completo de pagos y promedios, con y sin generar el reporte o tomarlo de la caché
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ProcesamientoBenchmark {
+    
+    @Param({"1000", "100000", "1000000"})
+    int entidades;
+    
+    // Como texto: el código que genera JMH vive en otro paquete y no ve Reporte.Formato
+    @Param({"TEXTO", "JSON"})
+    String formato;
+    
+    private SistemaGestionCursos sistema;
+    private Reporte reporte;
+    
+    @Setup(Level.Trial)
+    public void preparar() {
+        sistema = DatosBenchmark.crearSistema(entidades, 5);
+        // Inscribe a cada estudiante en un curso para que haya promedios por curso
+        for (Estudiante estudiante : sistema.getEstudiantes()) {
+            Curso curso = sistema.getCurso(Math.floorMod(estudiante.getId().hashCode(), 100));
+            curso.inscribir(estudiante);
+        }
+        // El reporte escribe a un destino nulo para medir el formateo y no la consola
+        reporte = new Reporte(Writer.nullWriter(), Reporte.Formato.valueOf(formato));
+    }
+    
+    // Sin la caché de reportes, para medir la generación completa
+    @Benchmark
+    public boolean procesarPagos() {
+        sistema.getCacheReportes().limpiar();
+        sistema.procesarPagos(reporte);
+        reporte.vaciar();
+        return reporte.hayError();
+    }
+    
+    @Benchmark
+    public boolean procesarPromedios() {
+        sistema.getCacheReportes().limpiar();
+        sistema.procesarPromedios(reporte);
+        reporte.vaciar();
+        return reporte.hayError();
+    }
+    
+    // Sin cambios entre consultas: el reporte sale de la caché
+    @Benchmark
+    public boolean procesarPagosEnCache() {
+        sistema.procesarPagos(reporte);
+        reporte.vaciar();
+        return reporte.hayError();
+    }
+    
+    @Benchmark
+    public boolean procesarPromediosEnCache() {
+        sistema.procesarPromedios(reporte);
+        reporte.vaciar();
+        return reporte.hayError();
+    }
+    
+    @Benchmark
+    public ResultadoNomina calcularNomina() {
+        return sistema.calcularNomina();
+    }
+    
+    @Benchmark
+    public ResultadoPromedios calcularPromedios() {
+        return sistema.calcularPromedios();
+    }
+}
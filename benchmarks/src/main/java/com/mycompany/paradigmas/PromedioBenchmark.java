@@ -0,0 +1,63 @@
+package com.mycompany.paradigmas;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Promedio de un estudiante según la cantidad de calificaciones registradas
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PromedioBenchmark {
+    
+    @Param({"1000", "100000", "1000000"})
+    int entidades;
+    
+    private Estudiante evaluado;
+    private Estudiante sinCalificaciones;
+    
+    @Setup(Level.Trial)
+    public void preparar() {
+        java.util.Random aleatorio = new java.util.Random(DatosBenchmark.SEMILLA);
+        evaluado = new Estudiante("Evaluado", "E1");
+        for (int i = 0; i < entidades; i++) {
+            evaluado.registrarCalificacion(aleatorio.nextInt(101) / 10.0);
+        }
+        sinCalificaciones = new Estudiante("Sin calificaciones", "E2");
+    }
+    
+    @Benchmark
+    public double calcularPromedio() throws PromedioInvalidoException {
+        return evaluado.calcularPromedio();
+    }
+    
+    // Variante sin excepciones que usan los motores de cálculo
+    @Benchmark
+    public double promedioActualSinCalificaciones() {
+        return sinCalificaciones.promedioActual();
+    }
+    
+    // Camino de error: mide el costo de crear y lanzar la excepción
+    @Benchmark
+    public String calcularPromedioSinCalificaciones() {
+        try {
+            sinCalificaciones.calcularPromedio();
+            return null;
+        } catch (PromedioInvalidoException e) {
+            return e.getMessage();
+        }
+    }
+}
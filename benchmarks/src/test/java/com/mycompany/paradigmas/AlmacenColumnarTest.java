@@ -0,0 +1,58 @@
+package com.mycompany.paradigmas;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+// Con el almacén columnar los promedios de la población son los mismos que leyendo cada estudiante
+class AlmacenColumnarTest {
+    
+    private static void assertMismosPromedios(SistemaGestionCursos sistema) {
+        ResultadoPromedios columnar = sistema.calcularPromedios();
+        ResultadoPromedios objetos = MotorPromedios.calcular(sistema.getEstudiantes(), sistema.getCursos());
+        assertEquals(objetos.getCantidadEstudiantes(), columnar.getCantidadEstudiantes());
+        for (int i = 0; i < objetos.getCantidadEstudiantes(); i++) {
+            assertEquals(objetos.getPromedio(i), columnar.getPromedio(i), "estudiante " + i);
+        }
+        assertEquals(objetos.getPromedioInstitucional(), columnar.getPromedioInstitucional());
+        assertEquals(objetos.getCantidadSinCalificaciones(), columnar.getCantidadSinCalificaciones());
+        assertArrayEquals(objetos.getDistribucion(), columnar.getDistribucion());
+    }
+    
+    @Test
+    void sinElModoNoHayAlmacen() {
+        assertNull(new SistemaGestionCursos(false).getAlmacenColumnar());
+    }
+    
+    @Test
+    void losPromediosCoincidenConLosDeCadaEstudiante() {
+        SistemaGestionCursos sistema = new SistemaGestionCursos(true);
+        List<Estudiante> estudiantes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            // Profesores intercalados: las filas del almacén son solo de estudiantes
+            if (i % 7 == 0) {
+                sistema.agregarPersona(new ProfesorTiempoCompleto("Profesor " + i, "P" + i, 1000));
+            }
+            Estudiante estudiante = new Estudiante("Estudiante " + i, "E" + i);
+            // Calificaciones anteriores al alta, que el almacén copia al registrarlo
+            for (int j = 0; j < i % 3; j++) {
+                estudiante.registrarCalificacion((i + j) % 11);
+            }
+            sistema.agregarPersona(estudiante);
+            estudiantes.add(estudiante);
+        }
+        for (int i = 0; i < estudiantes.size(); i += 2) {
+            estudiantes.get(i).registrarCalificaciones(new double[] {i % 11, 12, 3.5}, 3);
+            // Un cambio de ID no cambia la fila del estudiante
+            estudiantes.get(i).setId("X" + i);
+            estudiantes.get(i).registrarCalificacion(9.25);
+        }
+        
+        assertEquals(estudiantes.size(), sistema.getAlmacenColumnar().getCantidadEstudiantes());
+        assertMismosPromedios(sistema);
+    }
+}
@@ -0,0 +1,130 @@
+package com.mycompany.paradigmas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+// Cada tipo de cambio invalida solo los reportes que lo muestran
+class CacheReportesTest {
+    
+    // Cambios de los que depende cada reporte, según lo que muestra
+    private static final Map<String, EnumSet<CacheReportes.Cambio>> DEPENDENCIAS = new LinkedHashMap<>();
+    
+    static {
+        DEPENDENCIAS.put("pagos", EnumSet.of(CacheReportes.Cambio.ALTA_PROFESOR,
+                CacheReportes.Cambio.DATOS_PROFESOR, CacheReportes.Cambio.PAGO));
+        DEPENDENCIAS.put("promedios", EnumSet.of(CacheReportes.Cambio.ALTA_ESTUDIANTE,
+                CacheReportes.Cambio.DATOS_ESTUDIANTE, CacheReportes.Cambio.CALIFICACION,
+                CacheReportes.Cambio.INSCRIPCION, CacheReportes.Cambio.CURSO));
+        DEPENDENCIAS.put("cursos", EnumSet.of(CacheReportes.Cambio.CURSO, CacheReportes.Cambio.INSCRIPCION,
+                CacheReportes.Cambio.CALIFICACION, CacheReportes.Cambio.DATOS_ESTUDIANTE,
+                CacheReportes.Cambio.DATOS_PROFESOR));
+    }
+    
+    private final SistemaGestionCursos sistema = new SistemaGestionCursos();
+    private final ProfesorTiempoCompleto profesor = new ProfesorTiempoCompleto("Ana", "P1", 1000);
+    private final Estudiante estudiante = new Estudiante("Eva", "E1");
+    private final Estudiante sinInscribir = new Estudiante("Luis", "E2");
+    private final Curso curso = new Curso("Álgebra", profesor);
+    
+    CacheReportesTest() {
+        sistema.agregarPersona(profesor);
+        sistema.agregarPersona(estudiante);
+        sistema.agregarPersona(sinInscribir);
+        sistema.agregarCurso(curso);
+        curso.inscribir(estudiante);
+        estudiante.registrarCalificacion(4);
+    }
+    
+    private String generar(String reporte) {
+        StringWriter texto = new StringWriter();
+        Reporte destino = new Reporte(texto, Reporte.Formato.CSV);
+        switch (reporte) {
+            case "pagos":
+                sistema.procesarPagos(destino);
+                break;
+            case "promedios":
+                sistema.procesarPromedios(destino);
+                break;
+            default:
+                sistema.mostrarTodosLosCursos(destino);
+                break;
+        }
+        destino.vaciar();
+        return texto.toString();
+    }
+    
+    private void aplicar(CacheReportes.Cambio cambio) {
+        switch (cambio) {
+            case ALTA_PROFESOR:
+                sistema.agregarPersona(new ProfesorPorHoras("Nuevo", "P2", 10, 20));
+                break;
+            case ALTA_ESTUDIANTE:
+                sistema.agregarPersona(new Estudiante("Nueva", "E3"));
+                break;
+            case DATOS_PROFESOR:
+                profesor.setNombre("Ana María");
+                break;
+            case DATOS_ESTUDIANTE:
+                estudiante.setNombre("Eva María");
+                break;
+            case PAGO:
+                profesor.setSalarioMensual(2000);
+                break;
+            case CURSO:
+                curso.setNombreCurso("Álgebra lineal");
+                break;
+            case INSCRIPCION:
+                curso.inscribir(sinInscribir);
+                break;
+            case CALIFICACION:
+                estudiante.registrarCalificacion(8);
+                break;
+            default:
+                throw new AssertionError("Cambio sin caso de prueba: " + cambio);
+        }
+    }
+    
+    @ParameterizedTest
+    @EnumSource(CacheReportes.Cambio.class)
+    void cadaCambioInvalidaSoloLosReportesQueDependenDeEl(CacheReportes.Cambio cambio) {
+        Map<String, String> anteriores = new LinkedHashMap<>();
+        for (String reporte : DEPENDENCIAS.keySet()) {
+            anteriores.put(reporte, generar(reporte));
+        }
+        aplicar(cambio);
+        
+        CacheReportes cache = sistema.getCacheReportes();
+        for (String reporte : DEPENDENCIAS.keySet()) {
+            long aciertos = cache.getAciertos();
+            String actual = generar(reporte);
+            boolean vigente = cache.getAciertos() > aciertos;
+            assertEquals(!DEPENDENCIAS.get(reporte).contains(cambio), vigente, reporte);
+            if (vigente) {
+                assertEquals(anteriores.get(reporte), actual, reporte);
+            }
+        }
+    }
+    
+    // Un reporte generado entre el aviso de la calificación y la actualización del promedio del
+    // curso no debe quedar en la caché con la media anterior
+    @Test
+    void unReporteGeneradoAntesDeActualizarElPromedioNoQuedaVigente() {
+        sistema.agregarOyente(new OyenteCambios() {
+            @Override
+            public void calificacionAgregada(Estudiante calificado, int posicion, double calificacion) {
+                generar("cursos");
+            }
+        });
+        estudiante.registrarCalificacion(8);
+        assertEquals(6.0, curso.getPromedioCurso());
+        assertTrue(generar("cursos").contains("6.00"), "el listado muestra la media anterior");
+    }
+}
@@ -0,0 +1,69 @@
+package com.mycompany.paradigmas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+// Inscripciones por clave de ID: un cambio de ID no rompe la pertenencia ni las colecciones devueltas
+class CursoTest {
+    
+    private final SistemaGestionCursos sistema = new SistemaGestionCursos();
+    private final ProfesorTiempoCompleto profesor = new ProfesorTiempoCompleto("Ana", "P1", 1000);
+    private final Curso algebra = new Curso("Álgebra", profesor);
+    private final Curso fisica = new Curso("Física", profesor);
+    private final List<Estudiante> estudiantes = new ArrayList<>();
+    
+    CursoTest() {
+        sistema.agregarPersona(profesor);
+        sistema.agregarCurso(algebra);
+        sistema.agregarCurso(fisica);
+        for (int i = 0; i < 3; i++) {
+            Estudiante estudiante = new Estudiante("Estudiante " + i, "E" + i);
+            sistema.agregarPersona(estudiante);
+            algebra.inscribir(estudiante);
+            fisica.inscribir(estudiante);
+            estudiantes.add(estudiante);
+        }
+    }
+    
+    @Test
+    void unCambioDeIdConservaElOrdenDeInscripcion() {
+        estudiantes.get(0).setId("E9");
+        assertTrue(algebra.contieneEstudiante(estudiantes.get(0)));
+        List<Estudiante> inscritos;
+        synchronized (algebra) {
+            inscritos = new ArrayList<>(algebra.getEstudiantes());
+        }
+        assertEquals(estudiantes, inscritos);
+    }
+    
+    @Test
+    void lasColeccionesDevueltasSiguenValiendoTrasUnCambioDeId() {
+        Set<Estudiante> alumnos = sistema.getEstudiantesDeProfesor(profesor);
+        Map<Estudiante, List<Curso>> cursos = sistema.getCursosDeEstudiantes(estudiantes);
+        assertEquals(3, alumnos.size());
+        
+        estudiantes.get(1).setId("E7");
+        assertTrue(alumnos.contains(estudiantes.get(1)));
+        assertEquals(List.of(algebra, fisica), cursos.get(estudiantes.get(1)));
+    }
+    
+    // Un estudiante sin registrar con el mismo ID es otra persona
+    @Test
+    void unHomonimoSinRegistrarNoEsElEstudianteInscrito() {
+        Estudiante homonimo = new Estudiante("Otra", "E0");
+        assertNotEquals(estudiantes.get(0), homonimo);
+        assertFalse(algebra.contieneEstudiante(homonimo));
+        assertFalse(sistema.getEstudiantesDeProfesor(profesor).contains(homonimo));
+        // Tampoco puede dar de baja al inscrito que comparte su ID
+        assertFalse(algebra.desinscribir(homonimo));
+        assertTrue(algebra.contieneEstudiante(estudiantes.get(0)));
+    }
+}
@@ -0,0 +1,45 @@
+package com.mycompany.paradigmas;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Los valores que no son números finitos se rechazan como error de la fila, sin detener la importación
+class ImportadorMasivoTest {
+    
+    @TempDir
+    Path directorio;
+    
+    @Test
+    void losValoresNoFinitosSonErroresDeFila() throws IOException {
+        Path archivo = directorio.resolve("filas.csv");
+        Files.write(archivo, List.of(
+                "PROFESOR_TC,Ana,P1,Infinity",
+                "PROFESOR_HORAS,Luis,P2,10,1e999",
+                "PROFESOR_TC,Marta,P3,NaN",
+                "PROFESOR_TC,Sara,P4,2000",
+                "ESTUDIANTE,Eva,E1",
+                "CALIFICACION,E1,-Infinity",
+                "CALIFICACION,E1,8"));
+        SistemaGestionCursos sistema = new SistemaGestionCursos();
+        ResultadoImportacion resultado = new ImportadorMasivo(sistema).importar(archivo);
+        
+        assertEquals(7, resultado.getFilas());
+        assertEquals(3, resultado.getAceptadas());
+        assertEquals(4, resultado.getRechazadas());
+        assertArrayEquals(new long[] {1, 2, 3, 6},
+                resultado.getErrores().stream().mapToLong(ErrorImportacion::getLinea).toArray());
+        assertTrue(resultado.getErrores().get(1).getMensaje().contains("pagoPorHora"));
+        assertNull(sistema.buscarPersonaPorId("P1"));
+        assertEquals(List.of(8.0),
+                ((Estudiante) sistema.buscarPersonaPorId("E1")).getRegistroCalificaciones().comoLista());
+    }
+}
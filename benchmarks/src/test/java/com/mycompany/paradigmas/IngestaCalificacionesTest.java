@@ -0,0 +1,107 @@
+package com.mycompany.paradigmas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+// close() aplica todo lote aceptado antes de volver y ningún lote enviado después se acepta
+class IngestaCalificacionesTest {
+    
+    private static SistemaGestionCursos sistemaConEstudiantes(int cantidad) {
+        SistemaGestionCursos sistema = new SistemaGestionCursos();
+        for (int i = 0; i < cantidad; i++) {
+            sistema.agregarPersona(new Estudiante("Estudiante " + i, "E" + i));
+        }
+        return sistema;
+    }
+    
+    @Test
+    void alCerrarSeAplicanTodosLosLotesEnOrden() throws InterruptedException {
+        SistemaGestionCursos sistema = sistemaConEstudiantes(10);
+        List<Long> numeros = new ArrayList<>();
+        IngestaCalificaciones ingesta = new IngestaCalificaciones(sistema, 2,
+                resultado -> numeros.add(resultado.getNumero()));
+        for (int l = 0; l < 20; l++) {
+            LoteCalificaciones lote = new LoteCalificaciones(12);
+            for (int i = 0; i < 10; i++) {
+                lote.agregar("E" + i, null, (l + i) % 11);
+            }
+            lote.agregar("E0", null, 11);
+            lote.agregar("NO-EXISTE", null, 5);
+            ingesta.enviar(lote);
+        }
+        ingesta.close();
+        
+        assertEquals(200, ingesta.getAplicadas());
+        assertEquals(40, ingesta.getRechazadas());
+        List<Long> esperados = new ArrayList<>();
+        for (long n = 1; n <= 20; n++) {
+            esperados.add(n);
+        }
+        assertEquals(esperados, numeros);
+        // Las calificaciones de cada estudiante conservan el orden de envío
+        Estudiante primero = (Estudiante) sistema.buscarPersonaPorId("E0");
+        assertEquals(20, primero.getRegistroCalificaciones().getCantidad());
+        for (int l = 0; l < 20; l++) {
+            assertEquals(l % 11, primero.getRegistroCalificaciones().get(l));
+        }
+    }
+    
+    @Test
+    void enviarDespuesDeCerrarFalla() {
+        IngestaCalificaciones ingesta = new IngestaCalificaciones(sistemaConEstudiantes(1), 4, null);
+        ingesta.close();
+        // Cerrar dos veces no hace nada
+        ingesta.close();
+        LoteCalificaciones lote = new LoteCalificaciones(1);
+        lote.agregar("E0", null, 7);
+        assertThrows(IllegalStateException.class, () -> ingesta.enviar(lote));
+        assertEquals(0, ingesta.getAplicadas());
+    }
+    
+    // Productores que siguen enviando mientras otro hilo cierra: todo lote cuyo enviar() volvió
+    // sin excepción debe estar aplicado cuando close() termina
+    @Test
+    void ningunLoteAceptadoSePierdeAlCerrarConEnviosConcurrentes() throws InterruptedException {
+        for (int ronda = 0; ronda < 50; ronda++) {
+            IngestaCalificaciones ingesta = new IngestaCalificaciones(sistemaConEstudiantes(4), 1, null);
+            AtomicLong filasAceptadas = new AtomicLong();
+            CountDownLatch enMarcha = new CountDownLatch(4);
+            Thread[] productores = new Thread[4];
+            for (int p = 0; p < productores.length; p++) {
+                String estudiante = "E" + p;
+                productores[p] = new Thread(() -> {
+                    enMarcha.countDown();
+                    while (true) {
+                        LoteCalificaciones lote = new LoteCalificaciones(3);
+                        for (int i = 0; i < 3; i++) {
+                            lote.agregar(estudiante, null, i);
+                        }
+                        try {
+                            ingesta.enviar(lote);
+                        } catch (IllegalStateException | InterruptedException e) {
+                            return;
+                        }
+                        filasAceptadas.addAndGet(lote.getCantidad());
+                    }
+                });
+                productores[p].setDaemon(true);
+                productores[p].start();
+            }
+            enMarcha.await();
+            ingesta.close();
+            for (Thread productor : productores) {
+                productor.join(TimeUnit.SECONDS.toMillis(30));
+                assertFalse(productor.isAlive(), "un productor quedó bloqueado en enviar()");
+            }
+            assertEquals(filasAceptadas.get(), ingesta.getAplicadas() + ingesta.getRechazadas());
+        }
+    }
+}
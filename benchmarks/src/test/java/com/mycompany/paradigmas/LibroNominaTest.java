@@ -0,0 +1,116 @@
+package com.mycompany.paradigmas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// El libro incremental siempre da el mismo total que recalcular a todos los profesores
+class LibroNominaTest {
+    
+    private static List<Persona> registrarProfesores(SistemaGestionCursos sistema, int cantidad) {
+        List<Persona> profesores = new ArrayList<>();
+        // Los IDs siguen la cantidad de personas ya registradas, para no repetirse entre llamadas
+        int primero = sistema.getPersonas().size();
+        for (int i = primero; i < primero + cantidad; i++) {
+            Persona profesor = i % 2 == 0
+                    ? new ProfesorTiempoCompleto("Profesor " + i, "T" + i, 1000 + i)
+                    : new ProfesorPorHoras("Profesor " + i, "H" + i, 10, 20.5);
+            sistema.agregarPersona(profesor);
+            profesores.add(profesor);
+        }
+        return profesores;
+    }
+    
+    // Total y pagos inválidos recalculando cada monto, como referencia
+    private static double[] recalcular(List<Persona> profesores) {
+        double total = 0;
+        int invalidos = 0;
+        for (Persona profesor : profesores) {
+            double monto = ((Pagable) profesor).montoPago();
+            if (Pagable.esPagoValido(monto)) {
+                total += monto;
+            } else {
+                invalidos++;
+            }
+        }
+        return new double[] {total, invalidos};
+    }
+    
+    @Test
+    void soloRecalculaLosProfesoresModificados() {
+        SistemaGestionCursos sistema = new SistemaGestionCursos();
+        List<Persona> profesores = registrarProfesores(sistema, 10);
+        LibroNomina libro = sistema.getLibroNomina();
+        assertEquals(10, libro.getCantidadPendientes());
+        assertEquals(10, libro.actualizar());
+        assertEquals(0, libro.actualizar());
+        
+        ((ProfesorTiempoCompleto) profesores.get(0)).setSalarioMensual(5000);
+        ((ProfesorPorHoras) profesores.get(1)).setHorasTrabajadas(40);
+        ((ProfesorPorHoras) profesores.get(1)).setPagoPorHora(30);
+        assertEquals(2, libro.getCantidadPendientes());
+        assertEquals(2, libro.actualizar());
+        assertEquals(5000, libro.getMonto(profesores.get(0)));
+        assertEquals(1200, libro.getMonto(profesores.get(1)));
+        assertEquals(recalcular(profesores)[0], libro.getTotal(), 1e-9);
+        assertEquals(12, libro.getRecalculados());
+    }
+    
+    @Test
+    void elTotalCoincideTrasCambiosAleatorios() {
+        SistemaGestionCursos sistema = new SistemaGestionCursos();
+        List<Persona> profesores = registrarProfesores(sistema, 2000);
+        Random aleatorio = new Random(7);
+        for (int ronda = 0; ronda < 30; ronda++) {
+            for (int k = 0; k < 100; k++) {
+                Persona profesor = profesores.get(aleatorio.nextInt(profesores.size()));
+                if (profesor instanceof ProfesorTiempoCompleto) {
+                    // Algunos salarios negativos, para que haya pagos inválidos que entran y salen
+                    ((ProfesorTiempoCompleto) profesor).setSalarioMensual(aleatorio.nextInt(6000) - 500);
+                } else {
+                    ((ProfesorPorHoras) profesor).setHorasTrabajadas(aleatorio.nextInt(40));
+                }
+            }
+            if (ronda % 5 == 0) {
+                profesores.addAll(registrarProfesores(sistema, 3));
+            }
+            ResultadoNomina nomina = sistema.calcularNomina();
+            double[] esperado = recalcular(profesores);
+            assertEquals(profesores.size(), nomina.getCantidad());
+            assertEquals(esperado[0], nomina.getTotal(), 1e-6);
+            assertEquals((int) esperado[1], nomina.getCantidadInvalidos());
+            assertEquals((int) esperado[1], nomina.getPagosInvalidos().size());
+        }
+        LibroNomina libro = sistema.getLibroNomina();
+        libro.reconstruir();
+        assertEquals(recalcular(profesores)[0], libro.getTotal(), 1e-6);
+    }
+    
+    // Un resultado entregado comparte los arreglos del libro, pero los cambios posteriores no lo alteran
+    @Test
+    void elResultadoNoCambiaConActualizacionesPosteriores() {
+        SistemaGestionCursos sistema = new SistemaGestionCursos();
+        List<Persona> profesores = registrarProfesores(sistema, 20);
+        ResultadoNomina anterior = sistema.calcularNomina();
+        double totalAnterior = anterior.getTotal();
+        double pagoAnterior = anterior.getPago(0);
+        
+        ((ProfesorTiempoCompleto) profesores.get(0)).setSalarioMensual(-1);
+        registrarProfesores(sistema, 40);
+        ResultadoNomina nueva = sistema.calcularNomina();
+        
+        assertEquals(20, anterior.getCantidad());
+        assertEquals(pagoAnterior, anterior.getPago(0));
+        assertTrue(anterior.esValido(0));
+        assertEquals(totalAnterior, anterior.getTotal());
+        assertEquals(60, nueva.getCantidad());
+        assertFalse(nueva.esValido(0));
+        assertEquals(profesores.get(0), nueva.getProfesor(0));
+        assertEquals(1, nueva.getCantidadInvalidos());
+    }
+}
@@ -0,0 +1,232 @@
+package com.mycompany.paradigmas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Lo que se escribe en el diario (o en la instantánea) y se vuelve a cargar reproduce el mismo estado
+class PersistenciaTest {
+    
+    @TempDir
+    Path directorio;
+    
+    @Test
+    void elDiarioReproduceTodosLosCambios() throws IOException {
+        SistemaGestionCursos original = new SistemaGestionCursos();
+        DiarioEventos diario = new DiarioEventos(directorio, 0);
+        original.agregarOyente(diario);
+        modificar(original);
+        // Sin instantánea, como tras un cierre abrupto: solo queda el diario
+        diario.close();
+        assertFalse(Files.exists(directorio.resolve(Persistencia.INSTANTANEA)));
+        
+        SistemaGestionCursos recargado = new SistemaGestionCursos();
+        Persistencia persistencia = Persistencia.abrir(recargado, directorio, Long.MAX_VALUE);
+        try {
+            assertEquals(diario.getSecuencia(), persistencia.getEventosReproducidos());
+            assertEquals(estado(original), estado(recargado));
+        } finally {
+            persistencia.close();
+        }
+    }
+    
+    @Test
+    void laInstantaneaConservaElMismoEstado() throws IOException {
+        SistemaGestionCursos original = new SistemaGestionCursos();
+        Persistencia persistencia = Persistencia.abrir(original, directorio, Long.MAX_VALUE);
+        modificar(original);
+        persistencia.close();
+        
+        SistemaGestionCursos recargado = new SistemaGestionCursos();
+        Persistencia reabierta = Persistencia.abrir(recargado, directorio, Long.MAX_VALUE);
+        try {
+            assertEquals(0, reabierta.getEventosReproducidos());
+            assertEquals(estado(original), estado(recargado));
+        } finally {
+            reabierta.close();
+        }
+    }
+    
+    // El registro de un profesor lee su pago para el diario mientras otros hilos lo cambian: los
+    // avisos toman el candado del profesor antes que el del diario, así que no hay bloqueo mutuo
+    @Test
+    void elDiarioSoportaRegistrosYCambiosDePagoConcurrentes() throws Exception {
+        SistemaGestionCursos original = new SistemaGestionCursos();
+        DiarioEventos diario = new DiarioEventos(directorio, 0);
+        original.agregarOyente(diario);
+        ProfesorPorHoras[] profesores = new ProfesorPorHoras[20_000];
+        for (int i = 0; i < profesores.length; i++) {
+            profesores[i] = new ProfesorPorHoras("Profesor " + i, "P" + i, 1, 1);
+        }
+        Thread registro = new Thread(() -> {
+            for (ProfesorPorHoras profesor : profesores) {
+                original.agregarPersona(profesor);
+            }
+        });
+        Thread cambios = new Thread(() -> {
+            for (int ronda = 0; ronda < 50; ronda++) {
+                for (ProfesorPorHoras profesor : profesores) {
+                    profesor.setHorasTrabajadas(ronda + 2);
+                    profesor.setPagoPorHora(ronda + 3);
+                }
+            }
+        });
+        // Si hubiera un bloqueo, los hilos no impiden que termine la JVM de las pruebas
+        registro.setDaemon(true);
+        cambios.setDaemon(true);
+        registro.start();
+        cambios.start();
+        registro.join(TimeUnit.SECONDS.toMillis(60));
+        cambios.join(TimeUnit.SECONDS.toMillis(60));
+        assertFalse(registro.isAlive() || cambios.isAlive(), "bloqueo entre el diario y los profesores");
+        diario.close();
+        
+        SistemaGestionCursos recargado = new SistemaGestionCursos();
+        Persistencia persistencia = Persistencia.abrir(recargado, directorio, Long.MAX_VALUE);
+        try {
+            assertEquals(estado(original), estado(recargado));
+        } finally {
+            persistencia.close();
+        }
+    }
+    
+    // La instantánea se escribe mientras otro hilo da de alta personas, les cambia el ID (también a
+    // inscritos, entre la sección de personas y la de cursos) y las inscribe. Se recarga una copia del
+    // directorio tal como queda, sin la instantánea de cierre, como tras una caída
+    @Test
+    void laInstantaneaTomadaDuranteCambiosDeIdSeRecargaIgual() throws Exception {
+        SistemaGestionCursos original = new SistemaGestionCursos();
+        Persistencia persistencia = Persistencia.abrir(original, directorio.resolve("datos"), Long.MAX_VALUE);
+        try {
+            ProfesorTiempoCompleto profesor = new ProfesorTiempoCompleto("Ana", "P1", 3000);
+            original.agregarPersona(profesor);
+            Curso[] cursos = new Curso[4];
+            for (int c = 0; c < cursos.length; c++) {
+                cursos[c] = new Curso("Curso " + c, profesor);
+                original.agregarCurso(cursos[c]);
+            }
+            List<Estudiante> estudiantes = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                Estudiante estudiante = new Estudiante("Estudiante " + i, "E" + i);
+                original.agregarPersona(estudiante);
+                cursos[i % cursos.length].inscribir(estudiante);
+                estudiantes.add(estudiante);
+            }
+            
+            for (int ronda = 0; ronda < 10; ronda++) {
+                int numeroRonda = ronda;
+                CountDownLatch enMarcha = new CountDownLatch(1);
+                Thread cambios = new Thread(() -> {
+                    enMarcha.countDown();
+                    for (int i = 0; i < 2000; i++) {
+                        // Alta con un ID que cambia enseguida: la instantánea no debe ver dos personas
+                        Estudiante nuevo = new Estudiante("Nuevo " + i, "X" + numeroRonda + "-" + i);
+                        original.agregarPersona(nuevo);
+                        nuevo.setId("Y" + numeroRonda + "-" + i);
+                        cursos[i % cursos.length].inscribir(nuevo);
+                        Estudiante inscrito = estudiantes.get(i % estudiantes.size());
+                        inscrito.setId(inscrito.getId() + "'");
+                        inscrito.registrarCalificacion(i % 11);
+                    }
+                });
+                cambios.setDaemon(true);
+                cambios.start();
+                enMarcha.await();
+                persistencia.guardarInstantanea();
+                cambios.join(TimeUnit.SECONDS.toMillis(60));
+                assertFalse(cambios.isAlive(), "los cambios no terminaron");
+                persistencia.vaciar();
+                
+                Path copia = directorio.resolve("copia-" + ronda);
+                Files.createDirectories(copia);
+                try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio.resolve("datos"))) {
+                    for (Path archivo : archivos) {
+                        Files.copy(archivo, copia.resolve(archivo.getFileName()));
+                    }
+                }
+                SistemaGestionCursos recargado = new SistemaGestionCursos();
+                Persistencia reabierta = Persistencia.abrir(recargado, copia, Long.MAX_VALUE);
+                try {
+                    assertEquals(estado(original), estado(recargado), "ronda " + ronda);
+                } finally {
+                    reabierta.close();
+                }
+            }
+        } finally {
+            persistencia.close();
+        }
+    }
+    
+    // Un evento de cada tipo que registra el diario
+    private static void modificar(SistemaGestionCursos sistema) {
+        ProfesorTiempoCompleto ana = new ProfesorTiempoCompleto("Ana", "P1", 3000);
+        ProfesorPorHoras luis = new ProfesorPorHoras("Luis", "P2", 20, 15.5);
+        sistema.agregarPersona(ana);
+        sistema.agregarPersona(luis);
+        List<Estudiante> estudiantes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Estudiante estudiante = new Estudiante("Estudiante " + i, "E" + i);
+            sistema.agregarPersona(estudiante);
+            estudiantes.add(estudiante);
+        }
+        Curso algebra = new Curso("Álgebra", ana);
+        Curso fisica = new Curso("Física", luis);
+        sistema.agregarCurso(algebra);
+        sistema.agregarCurso(fisica);
+        for (Estudiante estudiante : estudiantes) {
+            algebra.inscribir(estudiante);
+        }
+        fisica.inscribir(estudiantes.get(0));
+        fisica.inscribir(estudiantes.get(1));
+        
+        estudiantes.get(0).registrarCalificacion(7.5);
+        estudiantes.get(1).registrarCalificaciones(new double[] {9, 4.25, 11, 6}, 4);
+        estudiantes.get(2).registrarCalificacion(10);
+        
+        ana.setSalarioMensual(3500);
+        luis.setHorasTrabajadas(32);
+        luis.setPagoPorHora(18);
+        estudiantes.get(3).setNombre("Estudiante renombrado");
+        estudiantes.get(4).setId("E40");
+        algebra.setNombreCurso("Álgebra lineal");
+        fisica.setProfesorAsignado(ana);
+        algebra.desinscribir(estudiantes.get(2));
+    }
+    
+    private static List<String> estado(SistemaGestionCursos sistema) {
+        List<String> lineas = new ArrayList<>();
+        for (Persona persona : sistema.getPersonas()) {
+            String linea = persona.getClass().getSimpleName() + " " + persona.getId() + " " + persona.getNombre();
+            if (persona instanceof ProfesorTiempoCompleto) {
+                linea += " " + ((ProfesorTiempoCompleto) persona).getSalarioMensual();
+            } else if (persona instanceof ProfesorPorHoras) {
+                ProfesorPorHoras profesor = (ProfesorPorHoras) persona;
+                linea += " " + profesor.getHorasTrabajadas() + " " + profesor.getPagoPorHora();
+            } else {
+                linea += " " + ((Estudiante) persona).getRegistroCalificaciones().comoLista();
+            }
+            lineas.add(linea);
+        }
+        for (Curso curso : sistema.getCursos()) {
+            List<String> inscritos = new ArrayList<>();
+            synchronized (curso) {
+                for (Estudiante estudiante : curso.getEstudiantes()) {
+                    inscritos.add(estudiante.getId());
+                }
+            }
+            lineas.add(curso.getNombreCurso() + " " + curso.getProfesorAsignado().getId() + " " + inscritos +
+                       " " + curso.getPromedioCurso());
+        }
+        return lineas;
+    }
+}
@@ -0,0 +1,78 @@
+package com.mycompany.paradigmas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// Las estadísticas incrementales (Welford) contra el cálculo directo en dos pasadas
+class RegistroCalificacionesTest {
+    
+    @Test
+    void sinCalificacionesDevuelveNaN() {
+        RegistroCalificaciones registro = new RegistroCalificaciones();
+        assertTrue(Double.isNaN(registro.getPromedio()));
+        assertTrue(Double.isNaN(registro.getVarianza()));
+        assertTrue(Double.isNaN(registro.getMinimo()));
+        assertTrue(Double.isNaN(registro.getMaximo()));
+    }
+    
+    @Test
+    void coincideConElCalculoDirecto() {
+        Random aleatorio = new Random(42);
+        for (int cantidad : new int[] {1, 2, 7, 1000, 100_000}) {
+            RegistroCalificaciones registro = new RegistroCalificaciones();
+            double[] valores = new double[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                valores[i] = Math.round(aleatorio.nextDouble() * 100) / 10.0;
+                registro.agregar(valores[i]);
+            }
+            
+            double suma = 0;
+            double minimo = Double.POSITIVE_INFINITY;
+            double maximo = Double.NEGATIVE_INFINITY;
+            for (double valor : valores) {
+                suma += valor;
+                minimo = Math.min(minimo, valor);
+                maximo = Math.max(maximo, valor);
+            }
+            double media = suma / cantidad;
+            double cuadrados = 0;
+            for (double valor : valores) {
+                cuadrados += (valor - media) * (valor - media);
+            }
+            
+            assertEquals(cantidad, registro.getCantidad());
+            assertEquals(media, registro.getPromedio(), 1e-9);
+            assertEquals(cuadrados / cantidad, registro.getVarianza(), 1e-9);
+            assertEquals(minimo, registro.getMinimo());
+            assertEquals(maximo, registro.getMaximo());
+        }
+    }
+    
+    // Con un desplazamiento grande, suma de cuadrados menos cuadrado de la suma pierde todos los dígitos
+    @Test
+    void laVarianzaNoSeCancelaConValoresGrandes() {
+        RegistroCalificaciones registro = new RegistroCalificaciones();
+        double base = 1e9;
+        for (int i = 0; i < 10_000; i++) {
+            registro.agregar(base + (i % 2 == 0 ? 1 : -1));
+        }
+        assertEquals(base, registro.getPromedio(), 1e-6);
+        assertEquals(1.0, registro.getVarianza(), 1e-6);
+    }
+    
+    @Test
+    void laVistaNoCambiaConCalificacionesPosteriores() {
+        RegistroCalificaciones registro = new RegistroCalificaciones();
+        for (int i = 0; i < 8; i++) {
+            registro.agregar(i);
+        }
+        List<Double> vista = registro.comoLista();
+        registro.agregar(9);
+        assertEquals(8, vista.size());
+        assertEquals(7.0, vista.get(7));
+    }
+}
@@ -0,0 +1,25 @@
+#!/bin/sh
+# Compila Gestion.java en paradigmas.jar y genera el archivo AppCDS paradigmas.jsa (Java 13+)
+# con una ejecución de entrenamiento sobre un directorio de datos con --inicio-rapido.
+# El archivo solo vale para ese mismo JAR: hay que volver a generarlo después de cada cambio.
+# Uso: scripts/entrenar-cds.sh [directorio de datos] [ID a consultar]
+set -e
+
+raiz=$(cd "$(dirname "$0")/.." && pwd)
+datos=${1:-./datos}
+id=${2:-E1}
+temporal=$(mktemp -d)
+trap 'rm -rf "$temporal"' EXIT
+
+# Gestion.java declara la clase pública Paradigmas, así que javac necesita ese nombre de archivo
+mkdir -p "$temporal/fuentes/com/mycompany/paradigmas" "$temporal/clases"
+cp "$raiz/Gestion.java" "$temporal/fuentes/com/mycompany/paradigmas/Paradigmas.java"
+javac -encoding UTF-8 -d "$temporal/clases" "$temporal/fuentes/com/mycompany/paradigmas/Paradigmas.java"
+jar --create --file paradigmas.jar -C "$temporal/clases" .
+
+rm -f paradigmas.jsa
+java -XX:ArchiveClassesAtExit=paradigmas.jsa -cp paradigmas.jar com.mycompany.paradigmas.Paradigmas \
+    --datos "$datos" --inicio-rapido --consultar "$id" --sin-menu
+
+echo "Archivo CDS listo. Para usarlo:"
+echo "java -XX:SharedArchiveFile=paradigmas.jsa -cp paradigmas.jar com.mycompany.paradigmas.Paradigmas --datos $datos --inicio-rapido"